@@ -0,0 +1,23 @@
+package com.codemind.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * java -jar benchmarks/target/benchmarks.jar [JMH 옵션]
+ *      - GC profiler (gc.alloc.rate, gc.alloc.rate.norm) 는 항상 추가합니다.
+ *      - ex) java -jar benchmarks.jar ParseBenchmark -p warns=1000
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,248 @@
+package com.codemind.benchmark;
+
+import com.codemind.AdaptiveLimiter;
+import com.codemind.AnalysisOrchestrator;
+import com.codemind.AnalysisResultParser;
+import com.codemind.AnalysisSummary;
+import com.codemind.BulkProvisioner;
+import com.codemind.ClientMetrics;
+import com.codemind.HttpClientPool;
+import com.codemind.LatencyHistogram;
+import com.codemind.ProjectDefinition;
+import com.codemind.ProvisionResult;
+import com.codemind.SessionManager;
+import com.codemind.StatusScheduler;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 전체 흐름 부하 테스트
+ *      - 프로젝트 N 개 생성 (BulkProvisioner) -> 분석 요청 / 상태 확인 / 결과 조회 (AnalysisOrchestrator) -> 삭제
+ *      - --url 을 지정하지 않으면 StubCodemindServer 를 띄워서 사용하며, 나머지 인자는 StubCodemindServer 설정으로 전달합니다.
+ *      - 처리량 (projects/s), 프로젝트별 대기 시간 / 소요 시간 (p50 / p99 / max), endpoint 별 통계 (ClientMetrics) 를 출력합니다.
+ *        대기 시간은 submit 부터 orchestrator 가 작업을 시작할 때 (첫 상태 조회) 까지, 소요 시간은 작업 시작부터 결과 조회까지입니다.
+ *
+ *  java -cp benchmarks/target/benchmarks.jar com.codemind.benchmark.LoadDriver \
+ *       --projects 200 --in-flight 20 --warns 10000 --analysis-time 2000 --latency 5,50 --error-rate 0.01
+ */
+public class LoadDriver {
+    private final String baseUrl;
+    private final int projectCount;
+    private final int maxInFlight;
+    private final int workerThreads;
+    private final double provisionRate;
+    private final long pollInterval;
+
+    /**
+     * @param pollInterval 상태 조회 최초 간격 (ms)
+     */
+    public LoadDriver(String baseUrl, int projectCount, int maxInFlight, int workerThreads, double provisionRate, long pollInterval) {
+        this.baseUrl = baseUrl;
+        this.projectCount = projectCount;
+        this.maxInFlight = maxInFlight;
+        this.workerThreads = workerThreads;
+        this.provisionRate = provisionRate;
+        this.pollInterval = pollInterval;
+    }
+
+    public void run() throws Exception {
+        ClientMetrics metrics = new ClientMetrics();
+        AdaptiveLimiter limiter = AdaptiveLimiter.custom()
+                .initialLimit(maxInFlight)
+                .maxLimit(maxInFlight + workerThreads + 10)
+                .build();
+        try (HttpClientPool pool = HttpClientPool.custom()
+                .maxTotal(maxInFlight + workerThreads + 10)
+                .maxPerRoute(maxInFlight + workerThreads + 10)
+                .metrics(metrics)
+                .build()) {
+            SessionManager session = new SessionManager(pool.getClient(), baseUrl, "openapi", "codemind", metrics, limiter);
+            session.login();
+
+            String prefix = "load-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+            List<String> names = new ArrayList<>(projectCount);
+            for (int i = 0; i < projectCount; i++) {
+                names.add(prefix + i);
+            }
+
+            long provisionTime = provision(session, names, ProjectDefinition.Action.CREATE);
+
+            LatencyHistogram waited = new LatencyHistogram();
+            LatencyHistogram elapsed = new LatencyHistogram();
+            AtomicInteger failed = new AtomicInteger();
+            Map<String, Long> started = new ConcurrentHashMap<>();      // 프로젝트별 작업 시작 (첫 상태 조회) 시각
+            long start = System.nanoTime();
+            // 상태 조회는 scheduler thread 가 아니라 동시 분석 수 만큼의 조회 thread 에서 요청
+            StatusScheduler statusScheduler = new StatusScheduler(projectName -> {
+                started.putIfAbsent(projectName, System.nanoTime());
+                return getStatus(session, projectName);
+            }, maxInFlight, pollInterval, pollInterval * 10, TimeUnit.HOURS.toMillis(1), TimeUnit.MILLISECONDS);
+            try (AnalysisOrchestrator orchestrator = new AnalysisOrchestrator(maxInFlight, workerThreads, statusScheduler, null,
+                    projectName -> analyze(session, projectName))) {
+                Map<String, CompletableFuture<AnalysisSummary>> results =
+                        orchestrator.submitAll(names, (projectName, sequence) -> load(session, projectName, sequence));
+                results.forEach((projectName, result) -> result.whenComplete((summary, ex) -> {
+                    long now = System.nanoTime();
+                    Long dispatched = started.get(projectName);
+                    if (dispatched != null) {
+                        waited.record(dispatched - start);
+                        elapsed.record(now - dispatched);
+                    }
+                    if (ex != null) {
+                        failed.incrementAndGet();
+                        System.out.println(String.format("[%s] %s", projectName, ex.getMessage()));
+                    }
+                }));
+            } finally {
+                statusScheduler.close();
+            }
+            long analysisTime = System.nanoTime() - start;
+
+            long deleteTime = provision(session, names, ProjectDefinition.Action.DELETE);
+
+            System.out.println("------------------------------------------------------------------------------");
+            System.out.println(String.format("projects: %d, failed: %d, in-flight: %d, workers: %d, logins: %d",
+                    projectCount, failed.get(), maxInFlight, workerThreads, session.getLogins()));
+            System.out.println(String.format("create: %.1f s, analysis: %.1f s (%.2f projects/s), delete: %.1f s",
+                    provisionTime / 1e9, analysisTime / 1e9, projectCount / (analysisTime / 1e9), deleteTime / 1e9));
+            System.out.println(String.format("queue wait per project (ms) p50: %.1f, p99: %.1f, max: %.1f",
+                    waited.getPercentile(50) / 1000.0, waited.getPercentile(99) / 1000.0, waited.getMax() / 1000.0));
+            System.out.println(String.format("time to result per project, from dispatch (ms) p50: %.1f, p99: %.1f, max: %.1f",
+                    elapsed.getPercentile(50) / 1000.0, elapsed.getPercentile(99) / 1000.0, elapsed.getMax() / 1000.0));
+            System.out.println("------------------------------------------------------------------------------");
+            System.out.println(metrics);
+            System.out.println(limiter);
+        }
+    }
+
+    /**
+     * @return 소요 시간 (ns)
+     */
+    private long provision(SessionManager session, List<String> names, ProjectDefinition.Action action) {
+        List<ProjectDefinition> projects = new ArrayList<>(names.size());
+        for (String name : names) {
+            projects.add(new ProjectDefinition(new JSONObject()
+                    .put("action", action.name().toLowerCase())
+                    .put("name", name)
+                    .put("repopath", "https://github.com/TheAlgorithms/Java.git")));
+        }
+        long start = System.nanoTime();
+        try (BulkProvisioner provisioner = new BulkProvisioner(session, baseUrl, workerThreads, provisionRate)) {
+            int failed = 0;
+            for (ProvisionResult result : provisioner.provision(projects)) {
+                if (result.getStatus() == ProvisionResult.Status.FAILED) failed++;
+            }
+            if (failed > 0) {
+                System.out.println(String.format("%s failed: %d", action, failed));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void analyze(SessionManager session, String projectName) throws IOException {
+        session.execute(csrf -> new HttpPost(baseUrl + "/api/analysis/" + projectName), response -> {
+            String content = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new InvalidParameterException(new JSONObject(content).getString("message"));
+            }
+            return null;
+        });
+    }
+
+    private JSONObject getStatus(SessionManager session, String projectName) throws IOException {
+        return session.execute(csrf -> new HttpGet(baseUrl + "/api/" + projectName + "/status"), response -> {
+            String content = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new InvalidParameterException(content);
+            }
+            return new JSONObject(content);
+        });
+    }
+
+    /**
+     * analysis-result (요약정보) + analysis-result-rule-statistics 조회
+     */
+    private AnalysisSummary load(SessionManager session, String projectName, int sequence) throws IOException {
+        String url = baseUrl + "/api/" + projectName + "/" + sequence;
+        AnalysisSummary summary = session.execute(csrf -> new HttpGet(url + "/analysis-result"), response -> {
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new InvalidParameterException(EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+            }
+            AnalysisSummary result = new AnalysisSummary();
+            try (AnalysisResultParser parser = new AnalysisResultParser(response.getEntity().getContent())) {
+                parser.parse(result);
+            }
+            return result;
+        });
+        session.execute(csrf -> new HttpGet(url + "/analysis-result-rule-statistics"), response -> {
+            String content = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new InvalidParameterException(content);
+            }
+            return new JSONObject(content);
+        });
+        return summary;
+    }
+
+    /**
+     * --url, --projects, --in-flight, --workers, --provision-rate, --poll-interval
+     *      그 외 인자는 StubCodemindServer.Builder.parse 참고
+     */
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int projects = 100;
+        int inFlight = 20;
+        int workers = 8;
+        double provisionRate = 100;
+        long pollInterval = 200;
+        for (int i = 0; i + 1 < args.length; i++) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--url":
+                    url = value;
+                    break;
+                case "--projects":
+                    projects = Integer.parseInt(value);
+                    break;
+                case "--in-flight":
+                    inFlight = Integer.parseInt(value);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "--provision-rate":
+                    provisionRate = Double.parseDouble(value);
+                    break;
+                case "--poll-interval":
+                    pollInterval = Long.parseLong(value);
+                    break;
+                default:
+                    continue;
+            }
+            i++;
+        }
+
+        if (url != null) {
+            new LoadDriver(url, projects, inFlight, workers, provisionRate, pollInterval).run();
+            return;
+        }
+        try (StubCodemindServer server = StubCodemindServer.custom().parse(args).build().start()) {
+            new LoadDriver(server.getUrl(), projects, inFlight, workers, provisionRate, pollInterval).run();
+            System.out.println(server);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.codemind.benchmark;
+
+import com.codemind.AnalysisResultParser;
+import com.codemind.AnalysisSummary;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * analysis-result 파싱 비교
+ *      - jsonObject: 기존 방식 (String 으로 읽은 후 JSONObject 생성)
+ *      - streaming: AnalysisResultParser (files[*].code 건너뜀)
+ *      - streamingWithCode: AnalysisResultParser + includeCode
+ *
+ *  1M warns 의 jsonObject 는 heap 이 많이 필요하므로 -Xmx8g 로 실행합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ParseBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int warns;
+
+    private Path payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        payload = PayloadGenerator.generate(warns, Files.createTempFile("analysis-result-" + warns + "-", ".json"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(payload);
+    }
+
+    @Benchmark
+    public int jsonObject() throws IOException {
+        String content = new String(Files.readAllBytes(payload), StandardCharsets.UTF_8);
+        JSONObject json = new JSONObject(content);
+        return json.getJSONArray("warns").length() + json.getJSONObject("files").length();
+    }
+
+    @Benchmark
+    public int streaming() throws IOException {
+        return parse(false).getWarns();
+    }
+
+    @Benchmark
+    public int streamingWithCode() throws IOException {
+        return parse(true).getWarns();
+    }
+
+    private AnalysisSummary parse(boolean includeCode) throws IOException {
+        AnalysisSummary summary = new AnalysisSummary();
+        InputStream in = new BufferedInputStream(Files.newInputStream(payload), 1 << 16);
+        try (AnalysisResultParser parser = new AnalysisResultParser(in).includeCode(includeCode)) {
+            parser.parse(summary);
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,70 @@
+package com.codemind.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * analysis-result 형식 (RestSample.loadAnalysisResult 주석 참고) 의 테스트 데이터 생성
+ *      - 파일 50 개당 취약점이 고르게 분포하도록 warns 건수에 비례해서 files 를 만듭니다.
+ */
+public class PayloadGenerator {
+    static final String[] CANONS = {
+            "0052_THROWBROAD", "002D_ASSTOPRIVA", "0060_BLOCKEMPTY", "0023_NOACTION",
+            "7003_LEAKERRORMSG", "0068_MISSDEFAL", "001C_LEAKCOM", "0048_MISSBREAK",
+            "005B_TRUE", "0024_NOCHKERR", "002C_RETPRIVA", "0018_RANDOM"
+    };
+    static final String FILE_PREFIX = "D:/workspace/CooperData/ProjectRepos/kr.codemind.lab/src/main/java/com/thealgorithms/";
+    static final int WARNS_PER_FILE = 50;
+    static final int LINES_PER_FILE = 200;
+
+    public static Path generate(int warns, Path target) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(target, StandardCharsets.UTF_8), 1 << 16)) {
+            write(warns, out);
+        }
+        return target;
+    }
+
+    public static void write(int warns, Writer out) throws IOException {
+        Random random = new Random(warns);
+        int files = Math.max(1, warns / WARNS_PER_FILE);
+
+        out.write("{\"user\":\"admin\",\"project\":\"kr.codemind.lab\",\"startTime\":1668668439517,\"endTime\":1668668599050,");
+        out.write("\"ruleset\":{\"id\":0,\"name\":\"\",\"title\":\"\"},\"files\":{");
+        for (int f = 0; f < files; f++) {
+            if (f > 0) out.write(',');
+            String path = file(f);
+            out.write('"' + path + "\":{\"path\":\"" + path + "\",\"code\":\"");
+            for (int line = 0; line < LINES_PER_FILE; line++) {
+                out.write("@{b}@{b}@{b}@{b}int@{b}value" + line + "@{b}=@{b}compute(\\\"" + f + "\\\",@{b}" + line + ");@{n}");
+            }
+            out.write("\",\"line\":" + LINES_PER_FILE + "}");
+        }
+        out.write("},\"totalLines\":" + (long) files * LINES_PER_FILE + ",\"canons\":{");
+        for (int c = 0; c < CANONS.length; c++) {
+            if (c > 0) out.write(',');
+            out.write('"' + CANONS[c] + "\":{\"id\":\"" + CANONS[c] + "\",\"name\":\"rule " + c + "\",\"cwe\":\"CWE-" + (390 + c)
+                    + "\",\"risky\":" + (c % 5 + 1) + ",\"description\":\"description of rule " + c + "\"}");
+        }
+        out.write("},\"warns\":[");
+        for (int w = 0; w < warns; w++) {
+            if (w > 0) out.write(',');
+            String path = file(random.nextInt(files));
+            int line = random.nextInt(LINES_PER_FILE) + 1;
+            int column = random.nextInt(40) + 1;
+            String location = "{\"file\":\"" + path + "\",\"sLine\":" + line + ",\"sColumn\":" + column
+                    + ",\"eLine\":" + line + ",\"eColumn\":" + (column + 10) + "}";
+            out.write("{\"id\":" + (1000000 + w) + ",\"file\":\"" + path + "\",\"canon\":\"" + CANONS[random.nextInt(CANONS.length)]
+                    + "\",\"traces\":{\"0\":" + location + "},\"lang\":\"Java\",\"status\":\"detection\",\"requester\":null,\"sink\":" + location + "}");
+        }
+        out.write("]}");
+    }
+
+    static String file(int index) {
+        return FILE_PREFIX + "package" + (index % 100) + "/Source" + index + ".java";
+    }
+}
@@ -0,0 +1,114 @@
+package com.codemind.benchmark;
+
+import com.codemind.AnalysisResultParser;
+import com.codemind.AnalysisSummary;
+import com.codemind.HttpClientPool;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * status 조회 + analysis-result 조회 (end-to-end)
+ *      - localhost 에 stub 서버 (com.sun.net.httpserver) 를 띄우고 HttpClientPool 로 요청합니다.
+ *      - 응답 body 는 AnalysisResultParser 로 읽습니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsun.net.httpserver.nodelay=true"})
+public class RequestBenchmark {
+    private static final String PROJECT = "kr.codemind.lab";
+    private static final int SEQUENCE = 1;
+
+    @Param({"1000", "100000"})
+    public int warns;
+
+    private byte[] payload;
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private HttpClientPool pool;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            PayloadGenerator.write(warns, out);
+        }
+        payload = bytes.toByteArray();
+        byte[] status = new JSONObject().put("status", "success").put("sequence", String.valueOf(SEQUENCE))
+                .toString().getBytes(StandardCharsets.UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/" + PROJECT + "/status", exchange -> send(exchange, status));
+        server.createContext("/api/" + PROJECT + "/" + SEQUENCE + "/analysis-result", exchange -> send(exchange, payload));
+        serverThreads = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverThreads);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        pool = HttpClientPool.custom().maxTotal(16).maxPerRoute(16).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.close();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private static void send(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(HttpStatus.SC_OK, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Benchmark
+    public int statusAndResult() throws IOException {
+        int sequence;
+        try (CloseableHttpResponse response = pool.getClient().execute(new HttpGet(baseUrl + "/api/" + PROJECT + "/status"))) {
+            sequence = Integer.parseInt(new JSONObject(EntityUtils.toString(response.getEntity())).getString("sequence"));
+        }
+        String url = baseUrl + "/api/" + PROJECT + "/" + sequence + "/analysis-result";
+        AnalysisSummary summary = new AnalysisSummary();
+        try (CloseableHttpResponse response = pool.getClient().execute(new HttpGet(url));
+             AnalysisResultParser parser = new AnalysisResultParser(response.getEntity().getContent())) {
+            parser.parse(summary);
+        }
+        return summary.getWarns();
+    }
+}
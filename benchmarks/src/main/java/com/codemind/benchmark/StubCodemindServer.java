@@ -0,0 +1,618 @@
+package com.codemind.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 테스트용 CODEMIND 서버 (com.sun.net.httpserver)
+ *      - client 가 사용하는 endpoint 를 모두 구현합니다.
+ *          /user/login/process, /user/login/check, /api/analysis/{project}, /api/{project}/status,
+ *          /api/{project}/{sequence}/analysis-result, /api/{project}/{sequence}/analysis-result-rule-statistics,
+ *          /api/project/create, /api/project/{project}/update, /api/project/{project}/delete
+ *      - 분석은 analysisTime 동안 statuses 를 순서대로 거친 후 success (failRate 확률로 fail) 가 됩니다.
+ *      - analysis-result 는 PayloadGenerator 로 warns 건을 미리 만들어 두고 (gzip 포함) 모든 프로젝트에 같은 body 를 보냅니다.
+ *      - 요청마다 latency 만큼 지연하고, errorRate / cmErrorRate 확률로 503 / "CM-" 오류를 보냅니다.
+ *        동시에 처리중인 요청이 maxConcurrent 를 넘으면 503 을 보냅니다. (서버 과부하)
+ *
+ *  ex) try (StubCodemindServer server = StubCodemindServer.custom().warns(10000).analysisTime(3000).build().start()) {
+ *          server.getUrl();
+ *      }
+ *
+ *  java -cp benchmarks/target/benchmarks.jar com.codemind.benchmark.StubCodemindServer --port 8083 --warns 100000
+ */
+public class StubCodemindServer implements Closeable {
+    static final String SESSION_COOKIE = "JSESSIONID";
+
+    private static final Pattern ANALYZE = Pattern.compile("^/api/analysis/([^/]+)$");
+    private static final Pattern PROJECT = Pattern.compile("^/api/project/([^/]+)/(update|delete)$");
+    private static final Pattern STATUS = Pattern.compile("^/api/([^/]+)/status$");
+    private static final Pattern RESULT = Pattern.compile("^/api/([^/]+)/(\\d+)/(analysis-result|analysis-result-rule-statistics)$");
+
+    private final Builder config;
+    private final byte[] payload;
+    private final byte[] gzipPayload;
+    private final byte[] ruleStatistics;
+    private final ConcurrentMap<String, Long> sessions = new ConcurrentHashMap<>();        // session id -> 로그인 시간
+    private final ConcurrentMap<String, String> csrfTokens = new ConcurrentHashMap<>();    // session id -> _csrf
+    private final ConcurrentMap<String, Project> projects = new ConcurrentHashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong logins = new AtomicLong();
+    private final AtomicLong analyses = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private StubCodemindServer(Builder builder) throws IOException {
+        this.config = builder;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            PayloadGenerator.write(builder.warns, out);
+        }
+        this.payload = bytes.toByteArray();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed, 65536)) {
+            out.write(payload);
+        }
+        this.gzipPayload = compressed.toByteArray();
+        this.ruleStatistics = ruleStatistics(builder.warns);
+        for (String name : builder.projects) {
+            projects.put(name, new Project(name));
+        }
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    private static byte[] ruleStatistics(int warns) {
+        int files = Math.max(1, warns / PayloadGenerator.WARNS_PER_FILE);
+        JSONArray canons = new JSONArray();
+        for (int c = 0; c < PayloadGenerator.CANONS.length; c++) {
+            canons.put(new JSONObject()
+                    .put("id", PayloadGenerator.CANONS[c])
+                    .put("count", warns / PayloadGenerator.CANONS.length + (c < warns % PayloadGenerator.CANONS.length ? 1 : 0)));
+        }
+        return new JSONObject()
+                .put("project_name", "kr.codemind.lab")
+                .put("total_lines", files * PayloadGenerator.LINES_PER_FILE)
+                .put("total_files", files)
+                .put("canons", canons)
+                .put("start_time", 1668668439)
+                .put("end_time", 1668668599)
+                .toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public StubCodemindServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", config.port), 1024);
+        executor = Executors.newFixedThreadPool(config.threads);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getLogins() {
+        return logins.get();
+    }
+
+    public long getAnalyses() {
+        return analyses.get();
+    }
+
+    /**
+     * errorRate / cmErrorRate 로 보낸 오류 수
+     */
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    /**
+     * maxConcurrent 초과로 보낸 503 수
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("stub requests: %d, logins: %d, analyses: %d, injected errors: %d, rejected: %d",
+                getRequests(), getLogins(), getAnalyses(), getInjectedErrors(), getRejected());
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        int concurrent = active.incrementAndGet();
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/user/login")) {
+                login(exchange, path);
+                return;
+            }
+            if (!path.startsWith("/api/")) {
+                send(exchange, 404, "not found");
+                return;
+            }
+            String session = session(exchange);
+            if (session == null) {
+                // 로그인 페이지로 redirect (session 만료)
+                exchange.getResponseHeaders().set("Location", "/user/login");
+                send(exchange, 302, "");
+                return;
+            }
+            if (concurrent > config.maxConcurrent) {
+                rejected.incrementAndGet();
+                send(exchange, 503, new JSONObject().put("message", "server busy").toString());
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (config.errorRate > 0 && random.nextDouble() < config.errorRate) {
+                injectedErrors.incrementAndGet();
+                send(exchange, 503, new JSONObject().put("message", "injected error").toString());
+                return;
+            }
+            if (config.cmErrorRate > 0 && random.nextDouble() < config.cmErrorRate) {
+                injectedErrors.incrementAndGet();
+                send(exchange, 200, "CM-9999 injected error");
+                return;
+            }
+            if (config.maxLatency > 0) {
+                TimeUnit.MILLISECONDS.sleep(config.minLatency + random.nextLong(config.maxLatency - config.minLatency + 1));
+            }
+            api(exchange, path, session);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            send(exchange, 500, new JSONObject().put("message", String.valueOf(e)).toString());
+        } finally {
+            active.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void login(HttpExchange exchange, String path) throws IOException {
+        switch (path) {
+            case "/user/login/process": {
+                Map<String, String> form = form(exchange);
+                if (form.getOrDefault("password", "").isEmpty()) {
+                    send(exchange, 200, "CM-0001 invalid username or password");
+                    return;
+                }
+                String session = UUID.randomUUID().toString();
+                sessions.put(session, System.currentTimeMillis());
+                csrfTokens.put(session, UUID.randomUUID().toString());
+                logins.incrementAndGet();
+                exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + session + "; Path=/");
+                send(exchange, 200, "success");
+                return;
+            }
+            case "/user/login/check": {
+                String session = session(exchange);
+                if (session == null) {
+                    send(exchange, 401, "unauthorized");
+                    return;
+                }
+                send(exchange, 200, new JSONObject().put("_csrf", csrfTokens.get(session)).toString());
+                return;
+            }
+            default:
+                send(exchange, 200, "<html><body>login</body></html>");
+        }
+    }
+
+    private void api(HttpExchange exchange, String path, String session) throws IOException {
+        String method = exchange.getRequestMethod();
+        Matcher matcher;
+        if (path.equals("/api/project/create") && method.equals("POST")) {
+            Map<String, String> form = form(exchange);
+            if (!checkCsrf(exchange, form, session)) return;
+            String name = form.get("name");
+            if (name == null || name.isEmpty()) {
+                send(exchange, 400, new JSONObject().put("message", "name is required").toString());
+            } else if (projects.putIfAbsent(name, new Project(name)) != null) {
+                send(exchange, 400, new JSONObject().put("message", "project already exists: " + name).toString());
+            } else {
+                send(exchange, 200, new JSONObject().put("result", "ok").toString());
+            }
+        } else if ((matcher = PROJECT.matcher(path)).matches()) {
+            String name = matcher.group(1);
+            if (matcher.group(2).equals("update")) {
+                if (!checkCsrf(exchange, form(exchange), session)) return;
+                sendProject(exchange, projects.get(name) != null, name);
+            } else {
+                sendProject(exchange, projects.remove(name) != null, name);
+            }
+        } else if ((matcher = ANALYZE.matcher(path)).matches() && method.equals("POST")) {
+            Project project = projects.get(matcher.group(1));
+            if (project == null) {
+                sendProject(exchange, false, matcher.group(1));
+                return;
+            }
+            String error = project.analyze();
+            if (error != null) {
+                send(exchange, 400, new JSONObject().put("message", error).toString());
+            } else {
+                analyses.incrementAndGet();
+                send(exchange, 200, new JSONObject().put("result", "ok").toString());
+            }
+        } else if ((matcher = STATUS.matcher(path)).matches()) {
+            Project project = projects.get(matcher.group(1));
+            if (project == null) {
+                sendProject(exchange, false, matcher.group(1));
+                return;
+            }
+            send(exchange, 200, project.status().toString());
+        } else if ((matcher = RESULT.matcher(path)).matches()) {
+            Project project = projects.get(matcher.group(1));
+            if (project == null || !project.hasResult(Integer.parseInt(matcher.group(2)))) {
+                send(exchange, 404, new JSONObject().put("message", "analysis result not found").toString());
+            } else if (matcher.group(3).equals("analysis-result")) {
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    send(exchange, 200, gzipPayload);
+                } else {
+                    send(exchange, 200, payload);
+                }
+            } else {
+                send(exchange, 200, ruleStatistics);
+            }
+        } else {
+            send(exchange, 404, new JSONObject().put("message", "not found: " + method + " " + path).toString());
+        }
+    }
+
+    /**
+     * @return 로그인되어 있지 않거나 sessionTimeout 이 지났으면 null
+     */
+    private String session(HttpExchange exchange) {
+        String cookies = exchange.getRequestHeaders().getFirst("Cookie");
+        if (cookies == null) return null;
+        for (String cookie : cookies.split(";")) {
+            String[] pair = cookie.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].equals(SESSION_COOKIE)) {
+                Long created = sessions.get(pair[1]);
+                if (created == null) return null;
+                if (config.sessionTimeout > 0 && System.currentTimeMillis() - created > config.sessionTimeout) {
+                    sessions.remove(pair[1]);
+                    csrfTokens.remove(pair[1]);
+                    return null;
+                }
+                return pair[1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * create / update 는 _csrf 가 있어야 하며 session 의 값과 같아야 합니다.
+     */
+    private boolean checkCsrf(HttpExchange exchange, Map<String, String> form, String session) throws IOException {
+        String csrf = form.get("_csrf");
+        if (csrf == null || !csrf.equals(csrfTokens.get(session))) {
+            send(exchange, 403, "invalid _csrf");
+            return false;
+        }
+        return true;
+    }
+
+    private static Map<String, String> form(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) != -1; ) body.write(buffer, 0, n);
+        }
+        Map<String, String> form = new HashMap<>();
+        for (String pair : new String(body.toByteArray(), StandardCharsets.UTF_8).split("&")) {
+            if (pair.isEmpty()) continue;
+            String[] keyValue = pair.split("=", 2);
+            form.put(decode(keyValue[0]), keyValue.length > 1 ? decode(keyValue[1]) : "");
+        }
+        return form;
+    }
+
+    private static String decode(String value) throws UnsupportedEncodingException {
+        return URLDecoder.decode(value, "UTF-8");
+    }
+
+    private static void sendProject(HttpExchange exchange, boolean found, String name) throws IOException {
+        if (found) {
+            send(exchange, 200, new JSONObject().put("result", "ok").toString());
+        } else {
+            send(exchange, 404, new JSONObject().put("message", "project not found: " + name).toString());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * 프로젝트 1개의 분석 상태
+     */
+    private final class Project {
+        final String name;
+        int sequence;
+        long startTime;             // 진행중인 분석 시작 시간 (없으면 0)
+        boolean willFail;
+        boolean lastFailed;
+
+        Project(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return 분석을 시작할 수 없으면 오류 메시지
+         */
+        synchronized String analyze() {
+            update();
+            if (startTime != 0) {
+                return "analysis is already running: " + name;
+            }
+            startTime = System.currentTimeMillis();
+            willFail = config.failRate > 0 && ThreadLocalRandom.current().nextDouble() < config.failRate;
+            return null;
+        }
+
+        synchronized JSONObject status() {
+            update();
+            if (startTime != 0) {
+                long elapsed = System.currentTimeMillis() - startTime;
+                int step = (int) Math.min(config.statuses.length - 1, elapsed * config.statuses.length / Math.max(1, config.analysisTime));
+                return new JSONObject().put("status", config.statuses[step]).put("sequence", String.valueOf(sequence));
+            }
+            if (sequence == 0) {
+                return new JSONObject().put("status", "").put("sequence", "0");
+            }
+            return new JSONObject().put("status", lastFailed ? "fail" : "success").put("sequence", String.valueOf(sequence));
+        }
+
+        synchronized boolean hasResult(int requested) {
+            update();
+            return requested >= 1 && (requested < sequence || (requested == sequence && startTime == 0 && !lastFailed));
+        }
+
+        /**
+         * analysisTime 이 지났으면 분석 완료 처리
+         */
+        private void update() {
+            if (startTime != 0 && System.currentTimeMillis() - startTime >= config.analysisTime) {
+                sequence++;
+                lastFailed = willFail;
+                startTime = 0;
+            }
+        }
+    }
+
+    /**
+     * 시간 단위는 모두 ms
+     */
+    public static class Builder {
+        private int port = 0;                       // 0: 임의의 port
+        private int threads = 16;
+        private int warns = 1000;
+        private long analysisTime = 2000;
+        private String[] statuses = {"wait", "analyzing", "reporting"};
+        private double failRate = 0;
+        private long minLatency = 0;
+        private long maxLatency = 0;
+        private double errorRate = 0;
+        private double cmErrorRate = 0;
+        private int maxConcurrent = Integer.MAX_VALUE;
+        private long sessionTimeout = 0;            // 0: 만료되지 않음
+        private String[] projects = {};
+
+        private Builder() {
+        }
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param warns analysis-result 의 취약점 수 (응답 크기)
+         */
+        public Builder warns(int warns) {
+            this.warns = warns;
+            return this;
+        }
+
+        /**
+         * @param analysisTime 분석 요청 ~ 완료 시간
+         */
+        public Builder analysisTime(long analysisTime) {
+            this.analysisTime = analysisTime;
+            return this;
+        }
+
+        /**
+         * @param statuses 분석 중 상태 (analysisTime 을 나눠서 순서대로)
+         */
+        public Builder statuses(String... statuses) {
+            if (statuses.length == 0) throw new IllegalArgumentException("statuses is empty");
+            this.statuses = statuses;
+            return this;
+        }
+
+        /**
+         * @param failRate 분석이 fail 로 끝날 확률
+         */
+        public Builder failRate(double failRate) {
+            this.failRate = failRate;
+            return this;
+        }
+
+        /**
+         * @param minLatency /api 요청 처리 시간 (minLatency ~ maxLatency 사이 임의의 값)
+         */
+        public Builder latency(long minLatency, long maxLatency) {
+            if (minLatency < 0 || maxLatency < minLatency) throw new IllegalArgumentException("invalid latency range");
+            this.minLatency = minLatency;
+            this.maxLatency = maxLatency;
+            return this;
+        }
+
+        /**
+         * @param errorRate /api 요청에 503 을 보낼 확률
+         * @param cmErrorRate /api 요청에 200 "CM-9999 ..." 을 보낼 확률
+         */
+        public Builder errors(double errorRate, double cmErrorRate) {
+            this.errorRate = errorRate;
+            this.cmErrorRate = cmErrorRate;
+            return this;
+        }
+
+        /**
+         * @param maxConcurrent 동시에 처리할 수 있는 최대 요청 수 (초과 시 503)
+         */
+        public Builder maxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            return this;
+        }
+
+        /**
+         * @param sessionTimeout 로그인 후 session 이 만료되는 시간
+         */
+        public Builder sessionTimeout(long sessionTimeout) {
+            this.sessionTimeout = sessionTimeout;
+            return this;
+        }
+
+        /**
+         * @param projects 미리 등록할 프로젝트
+         */
+        public Builder projects(String... projects) {
+            this.projects = projects;
+            return this;
+        }
+
+        /**
+         * --port, --threads, --warns, --analysis-time, --statuses (a,b,c), --fail-rate, --latency (min,max),
+         * --error-rate, --cm-error-rate, --max-concurrent, --session-timeout
+         * @return 처리하지 않은 인자는 무시합니다.
+         */
+        public Builder parse(String[] args) {
+            for (int i = 0; i + 1 < args.length; i++) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--warns":
+                        warns = Integer.parseInt(value);
+                        break;
+                    case "--analysis-time":
+                        analysisTime = Long.parseLong(value);
+                        break;
+                    case "--statuses":
+                        statuses(value.split(","));
+                        break;
+                    case "--fail-rate":
+                        failRate = Double.parseDouble(value);
+                        break;
+                    case "--latency": {
+                        String[] range = value.split(",");
+                        latency(Long.parseLong(range[0]), Long.parseLong(range[range.length - 1]));
+                        break;
+                    }
+                    case "--error-rate":
+                        errorRate = Double.parseDouble(value);
+                        break;
+                    case "--cm-error-rate":
+                        cmErrorRate = Double.parseDouble(value);
+                        break;
+                    case "--max-concurrent":
+                        maxConcurrent = Integer.parseInt(value);
+                        break;
+                    case "--session-timeout":
+                        sessionTimeout = Long.parseLong(value);
+                        break;
+                    default:
+                        continue;
+                }
+                i++;
+            }
+            return this;
+        }
+
+        public StubCodemindServer build() throws IOException {
+            return new StubCodemindServer(this);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        StubCodemindServer server = custom().port(8083).parse(args).build().start();
+        System.out.println("stub CODEMIND server: " + server.getUrl());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println(server);
+            server.close();
+        }));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,386 @@
+package com.codemind;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.BufferedHttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * endpoint 별 동시 요청 수 제한 (AIMD) 및 circuit breaker
+ *      - 동시 요청 수 limit 는 성공할 때마다 조금씩 늘리고 (limit 당 +1), 서버 오류나 latency 증가가 보이면 backoffRatio 를 곱해서 줄입니다.
+ *      - latency 는 요청 전송 ~ 응답 header 수신 시간입니다. 최근 latency 평균이 endpoint 별 기준값 (최소값에 가깝게 천천히 따라감) 의
+ *        latencyTolerance 배를 넘으면 혼잡으로 봅니다.
+ *      - 오류: I/O 오류, 429, 5xx, 짧은 응답 body 가 "CM-" 로 시작하는 경우 (4xx 는 서버 상태와 무관하므로 반영하지 않습니다.)
+ *      - 연속으로 failureThreshold 번 이상, MIN_FAILURE_DURATION 이상 실패가 계속되면 circuit 을 열고 openDuration 동안 바로 CircuitOpenException 으로 실패합니다.
+ *        그 후 한 건만 보내보고 성공하면 닫고, 실패하면 openDuration 을 두 배로 늘려서 다시 엽니다.
+ *      - endpoint 이름은 ClientMetrics 와 같습니다. (ex. /api/{project}/status)
+ *
+ *  ex) AdaptiveLimiter limiter = AdaptiveLimiter.custom().initialLimit(10).maxLimit(50).build();
+ *      AdaptiveLimiter.Permit permit = limiter.acquire(ClientMetrics.endpointOf(url));
+ *      ... permit.release(AdaptiveLimiter.classify(response));
+ */
+public class AdaptiveLimiter {
+    static final int ERROR_BODY_LIMIT = 1024;               // "CM-" 오류인지 확인할 응답 body 최대 크기
+    static final long LATENCY_SLACK = TimeUnit.MILLISECONDS.toNanos(20);    // 이 이하의 latency 증가는 무시
+    static final double BASELINE_DRIFT = 0.01;              // latency 기준값이 증가하는 비율
+    static final double SMOOTHING = 0.2;                    // 최근 latency 평균 (EWMA) 에 새 값을 반영하는 비율
+    static final long MIN_FAILURE_DURATION = TimeUnit.SECONDS.toNanos(1);   // 일시적인 과부하로 circuit 을 열지 않도록
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 요청 결과
+     */
+    public enum Outcome {
+        SUCCESS,        // latency 를 반영하고 limit 증가
+        DROPPED,        // 서버 오류 - limit 감소, circuit 실패 횟수 증가
+        IGNORED         // 서버 상태와 무관 (4xx 등)
+    }
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int failureThreshold;
+    private final long openDuration;
+    private final long maxOpenDuration;
+    private final long maxWait;
+    private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<>();
+
+    private AdaptiveLimiter(Builder builder) {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.latencyTolerance = builder.latencyTolerance;
+        this.failureThreshold = builder.failureThreshold;
+        this.openDuration = TimeUnit.MILLISECONDS.toNanos(builder.openDuration);
+        this.maxOpenDuration = TimeUnit.MILLISECONDS.toNanos(builder.maxOpenDuration);
+        this.maxWait = TimeUnit.MILLISECONDS.toNanos(builder.maxWait);
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    /**
+     * 요청 전에 호출 - limit 에 여유가 생길 때까지 최대 maxWait 동안 기다립니다.
+     * @param endpoint ClientMetrics.endpointOf(uri)
+     * @throws CircuitOpenException circuit 이 열려 있는 경우
+     */
+    public Permit acquire(String endpoint) throws IOException {
+        return limit(endpoint).acquire();
+    }
+
+    private Limit limit(String endpoint) {
+        return limits.computeIfAbsent(endpoint, Limit::new);
+    }
+
+    /**
+     * 응답으로 요청 결과 판단
+     *      - 200 이면서 body 가 짧으면 "CM-" 오류인지 확인합니다. (확인한 body 는 다시 읽을 수 있도록 buffer 에 보관)
+     */
+    public static Outcome classify(HttpResponse response) throws IOException {
+        int status = response.getStatusLine().getStatusCode();
+        if (status == 429 || status >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+            return Outcome.DROPPED;
+        }
+        if (status != HttpStatus.SC_OK) {
+            return Outcome.IGNORED;
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity != null && entity.getContentLength() >= 0 && entity.getContentLength() <= ERROR_BODY_LIMIT) {
+            BufferedHttpEntity buffered = new BufferedHttpEntity(entity);
+            response.setEntity(buffered);
+            byte[] prefix = new byte[3];
+            int n = 0;
+            try (InputStream in = buffered.getContent()) {
+                for (int read; n < prefix.length && (read = in.read(prefix, n, prefix.length - n)) != -1; ) n += read;
+            }
+            if (n == prefix.length && new String(prefix, StandardCharsets.US_ASCII).equals("CM-")) {
+                return Outcome.DROPPED;
+            }
+        }
+        return Outcome.SUCCESS;
+    }
+
+    /**
+     * @return 요청하지 않은 endpoint 는 initialLimit
+     */
+    public int getLimit(String endpoint) {
+        return limit(endpoint).getLimit();
+    }
+
+    public int getInFlight(String endpoint) {
+        return limit(endpoint).getInFlight();
+    }
+
+    public State getState(String endpoint) {
+        return limit(endpoint).getState();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-52s %6s %8s %9s %8s %6s %9s%n",
+                "endpoint", "limit", "inflight", "state", "dropped", "opens", "base(ms)"));
+        for (Limit limit : new TreeMap<>(limits).values()) {
+            synchronized (limit) {
+                builder.append(String.format("%-52s %6d %8d %9s %8d %6d %9.1f%n",
+                        limit.name, (int) limit.limit, limit.inFlight, limit.state, limit.dropped, limit.opens,
+                        limit.baseline / 1e6));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 요청 한 건의 허가 - 응답을 받거나 실패하면 release 를 한 번 호출해야 합니다.
+     */
+    public static final class Permit {
+        private final Limit limit;
+        private final long start = System.nanoTime();
+        private final long epoch;
+        private final boolean probe;
+        private boolean released;
+
+        private Permit(Limit limit, long epoch, boolean probe) {
+            this.limit = limit;
+            this.epoch = epoch;
+            this.probe = probe;
+        }
+
+        public void release(Outcome outcome) {
+            if (released) return;
+            released = true;
+            limit.release(this, outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * endpoint 1개의 limit / circuit 상태
+     */
+    private final class Limit {
+        final String name;
+        double limit = initialLimit;
+        int inFlight;
+        State state = State.CLOSED;
+        boolean probing;
+        long openUntil;
+        long nextOpenDuration = openDuration;
+        int failures;               // 연속 실패 수
+        long failingSince;          // 연속 실패가 시작된 시간
+        long epoch;                 // limit 을 줄일 때마다 증가 (같은 시점에 보낸 요청들의 실패로 여러 번 줄이지 않도록)
+        double baseline;            // latency 기준값 (ns)
+        double recent;              // 최근 latency 평균 (ns)
+        long dropped;
+        long opens;
+
+        Limit(String name) {
+            this.name = name;
+        }
+
+        synchronized Permit acquire() throws IOException {
+            long deadline = System.nanoTime() + maxWait;
+            while (true) {
+                long now = System.nanoTime();
+                if (state == State.OPEN) {
+                    if (now - openUntil < 0) {
+                        throw new CircuitOpenException(name, TimeUnit.NANOSECONDS.toMillis(openUntil - now));
+                    }
+                    state = State.HALF_OPEN;
+                    probing = false;
+                }
+                if (state == State.HALF_OPEN) {
+                    if (probing) {
+                        throw new CircuitOpenException(name, 0);
+                    }
+                    probing = true;
+                    inFlight++;
+                    return new Permit(this, epoch, true);
+                }
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    return new Permit(this, epoch, false);
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    throw new IOException(String.format("[%s] concurrency limit %d reached: waited %d ms",
+                            name, (int) limit, TimeUnit.NANOSECONDS.toMillis(maxWait)));
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("[" + name + "] interrupted");
+                }
+            }
+        }
+
+        synchronized void release(Permit permit, Outcome outcome, long latency) {
+            inFlight--;
+            if (permit.probe) {
+                probing = false;
+            }
+            switch (outcome) {
+                case DROPPED:
+                    dropped++;
+                    if (failures++ == 0) failingSince = System.nanoTime();
+                    if (permit.probe || (state == State.CLOSED && failures >= failureThreshold
+                            && System.nanoTime() - failingSince >= MIN_FAILURE_DURATION)) {
+                        open();
+                    } else {
+                        decrease(permit);
+                    }
+                    break;
+                case SUCCESS:
+                    failures = 0;
+                    if (permit.probe) close();
+                    if (baseline == 0 || latency < baseline) {
+                        baseline = latency;
+                    } else {
+                        baseline += (latency - baseline) * BASELINE_DRIFT;
+                    }
+                    recent = recent == 0 ? latency : recent + (latency - recent) * SMOOTHING;
+                    if (recent > baseline * latencyTolerance && recent - baseline > LATENCY_SLACK) {
+                        decrease(permit);
+                    } else if (inFlight + 1 >= (int) limit / 2) {
+                        // limit 의 절반 이상 사용 중일 때만 증가 (요청이 적을 때 limit 만 커지지 않도록)
+                        limit = Math.min(maxLimit, limit + 1 / limit);
+                    }
+                    break;
+                default:
+                    failures = 0;
+                    if (permit.probe) close();
+                    break;
+            }
+            notifyAll();
+        }
+
+        private void decrease(Permit permit) {
+            if (permit.epoch != epoch) return;
+            limit = Math.max(minLimit, limit * backoffRatio);
+            epoch++;
+        }
+
+        private void open() {
+            state = State.OPEN;
+            openUntil = System.nanoTime() + nextOpenDuration;
+            System.out.println(String.format("[%s] circuit open for %d ms (%d failures)",
+                    name, TimeUnit.NANOSECONDS.toMillis(nextOpenDuration), failures));
+            nextOpenDuration = Math.min(nextOpenDuration * 2, maxOpenDuration);
+            limit = Math.max(minLimit, limit * backoffRatio);
+            epoch++;
+            opens++;
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            nextOpenDuration = openDuration;
+            System.out.println(String.format("[%s] circuit closed", name));
+        }
+
+        synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+    }
+
+    /**
+     * 시간 단위는 모두 ms
+     */
+    public static class Builder {
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 100;
+        private double backoffRatio = 0.8;
+        private double latencyTolerance = 2.0;
+        private int failureThreshold = 5;
+        private long openDuration = 5000;
+        private long maxOpenDuration = 60000;
+        private long maxWait = 30000;
+
+        private Builder() {
+        }
+
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public Builder minLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public Builder maxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * @param backoffRatio 오류 / 혼잡 시 limit 에 곱하는 값 (0 ~ 1)
+         */
+        public Builder backoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * @param latencyTolerance latency 가 기준값의 몇 배를 넘으면 혼잡으로 볼지
+         */
+        public Builder latencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * @param failureThreshold circuit 을 여는 연속 실패 수
+         * @param openDuration circuit 을 처음 열었을 때 유지 시간
+         * @param maxOpenDuration 연속으로 열 때 최대 유지 시간
+         */
+        public Builder circuitBreaker(int failureThreshold, long openDuration, long maxOpenDuration) {
+            this.failureThreshold = failureThreshold;
+            this.openDuration = openDuration;
+            this.maxOpenDuration = maxOpenDuration;
+            return this;
+        }
+
+        /**
+         * @param maxWait limit 에 여유가 생길 때까지 기다리는 최대 시간
+         */
+        public Builder maxWait(long maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        public AdaptiveLimiter build() {
+            if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+                throw new IllegalArgumentException("required 1 <= minLimit <= initialLimit <= maxLimit");
+            }
+            if (backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+            }
+            return new AdaptiveLimiter(this);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.codemind;
+
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 여러 프로젝트 분석 요청 / 결과 조회
+ *      - 서버에서 동시에 진행되는 분석은 최대 maxInFlight 건으로 제한합니다.
+ *      - 분석 진행상태는 StatusScheduler 에서 확인하므로 대기중인 분석이 thread 를 점유하지 않습니다.
+ *      - 분석 요청과 분석이 끝난 프로젝트의 결과 조회는 worker pool 에서 수행합니다.
+ *      - 프로젝트별 결과는 CompletableFuture 로 전달됩니다.
+ *      - journal 을 지정하면 작업 상태를 기록하고, 다시 실행했을 때 resume() 으로 끝나지 않은 작업만 이어서 진행합니다.
+ *        (분석 요청 전에 서버의 마지막 sequence 와 함께 SUBMITTED 를 fsync 하므로 이미 요청된 분석을 다시 요청하지 않습니다.)
+ */
+public class AnalysisOrchestrator implements Closeable {
+
+    /**
+     * 분석 요청 (ex. RestSample::analyze)
+     */
+    public interface Analyzer {
+        void analyze(String projectName) throws Exception;
+    }
+
+    /**
+     * 분석 완료 후 결과 조회 (ex. RestSample::loadAnalysisResult)
+     */
+    public interface ResultLoader<T> {
+        T load(String projectName, int sequence) throws Exception;
+    }
+
+    private final int maxInFlight;
+    private final StatusScheduler statusScheduler;
+    private final ExecutorService workers;
+    private final JobJournal journal;
+    private final Analyzer analyzer;
+    private final Deque<Runnable> pending = new ArrayDeque<>();
+    private int inFlight = 0;
+    private int unfinished = 0;
+
+    public AnalysisOrchestrator(int maxInFlight, int workerThreads) {
+        this(maxInFlight, workerThreads, RestSample.statusScheduler());
+    }
+
+    /**
+     * @param maxInFlight 서버에서 동시에 진행할 최대 분석 건수
+     * @param workerThreads 분석 요청 / 결과 조회 thread 수
+     * @param statusScheduler 분석 진행상태 체크
+     */
+    public AnalysisOrchestrator(int maxInFlight, int workerThreads, StatusScheduler statusScheduler) {
+        this(maxInFlight, workerThreads, statusScheduler, null);
+    }
+
+    /**
+     * @param journal 작업 상태 기록 (null 이면 기록하지 않음)
+     */
+    public AnalysisOrchestrator(int maxInFlight, int workerThreads, StatusScheduler statusScheduler, JobJournal journal) {
+        this(maxInFlight, workerThreads, statusScheduler, journal, RestSample::analyze);
+    }
+
+    /**
+     * @param analyzer 분석 요청 (기본값 RestSample::analyze)
+     */
+    public AnalysisOrchestrator(int maxInFlight, int workerThreads, StatusScheduler statusScheduler, JobJournal journal,
+                                Analyzer analyzer) {
+        if (maxInFlight < 1 || workerThreads < 1) {
+            throw new IllegalArgumentException("maxInFlight and workerThreads must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        this.statusScheduler = statusScheduler;
+        this.journal = journal;
+        this.analyzer = analyzer;
+        this.workers = Executors.newFixedThreadPool(workerThreads, daemonThreads("codemind-worker"));
+    }
+
+    public <T> Map<String, CompletableFuture<T>> submitAll(List<String> projectNames, ResultLoader<T> loader) {
+        Map<String, CompletableFuture<T>> results = new LinkedHashMap<>();
+        for (String projectName : projectNames) {
+            results.put(projectName, submit(projectName, loader));
+        }
+        return results;
+    }
+
+    public <T> CompletableFuture<T> submit(String projectName, ResultLoader<T> loader) {
+        return run(projectName, loader, () -> statusScheduler.status(projectName)
+                .thenApply(StatusScheduler::sequenceOf)
+                .thenCompose(prior -> record(projectName, JobJournal.State.SUBMITTED, prior, null)
+                        .thenRunAsync(() -> analyze(projectName), workers)
+                        .thenApply(v -> {
+                            record(projectName, JobJournal.State.RUNNING, prior, null);
+                            return prior;
+                        })));
+    }
+
+    /**
+     * journal 에 남아 있는 끝나지 않은 작업 재개
+     *      - SUBMITTED: 서버에서 진행중이거나 sequence 가 기록한 값 (요청 전) 보다 커졌으면 상태만 확인하고, 아니면 다시 분석 요청
+     *      - RUNNING: 분석 요청 없이 상태만 확인 (기록한 요청 전 sequence 보다 큰 결과만 사용)
+     *      - SUCCESS: 결과만 조회
+     * @return 프로젝트별 결과 (journal 이 없으면 비어 있음)
+     */
+    public <T> Map<String, CompletableFuture<T>> resume(ResultLoader<T> loader) {
+        Map<String, CompletableFuture<T>> results = new LinkedHashMap<>();
+        if (journal == null) return results;
+        for (JobJournal.Entry job : journal.getOutstanding()) {
+            String projectName = job.getProjectName();
+            System.out.println("resume " + job);
+            switch (job.getState()) {
+                case SUCCESS:
+                    results.put(projectName, fetch(projectName, job.getSequence(), loader));
+                    break;
+                case RUNNING:
+                    results.put(projectName, run(projectName, loader, () -> CompletableFuture.completedFuture(job.getSequence())));
+                    break;
+                default:
+                    results.put(projectName, run(projectName, loader, () -> statusScheduler.status(projectName)
+                            .thenApplyAsync(status -> {
+                                if (!isSubmitted(status, job.getSequence())) analyze(projectName);
+                                record(projectName, JobJournal.State.RUNNING, job.getSequence(), null);
+                                return job.getSequence();
+                            }, workers)));
+                    break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 분석 요청 (start) -> 상태 확인 -> 결과 조회
+     *      - start 부터 상태 확인이 끝날 때까지 서버 분석 한 건으로 계산합니다. (maxInFlight)
+     *      - start 는 분석 요청 전 sequence 로 완료되며, 그보다 큰 sequence 의 결과만 사용합니다.
+     */
+    private <T> CompletableFuture<T> run(String projectName, ResultLoader<T> loader, Supplier<CompletableFuture<Integer>> start) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        enqueue(() -> started(start)
+                .thenCompose(prior -> statusScheduler.watch(projectName, prior))
+                .whenComplete((sequence, ex) -> release())
+                .thenApplyAsync(sequence -> {
+                    record(projectName, JobJournal.State.SUCCESS, sequence, null);
+                    return fetched(projectName, sequence, load(loader, projectName, sequence));
+                }, workers)
+                .whenComplete((value, ex) -> complete(projectName, result, value, ex)));
+        return result;
+    }
+
+    /**
+     * start 가 바로 예외를 던져도 실패한 future 로 바꿔서 release / FAILED 기록이 그대로 실행되게 합니다.
+     */
+    private static CompletableFuture<Integer> started(Supplier<CompletableFuture<Integer>> start) {
+        try {
+            return start.get();
+        } catch (RuntimeException e) {
+            CompletableFuture<Integer> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * 분석이 끝난 프로젝트의 결과만 조회 (maxInFlight 에 포함하지 않음)
+     */
+    private <T> CompletableFuture<T> fetch(String projectName, int sequence, ResultLoader<T> loader) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        begin();
+        CompletableFuture
+                .supplyAsync(() -> fetched(projectName, sequence, load(loader, projectName, sequence)), workers)
+                .whenComplete((value, ex) -> complete(projectName, result, value, ex));
+        return result;
+    }
+
+    private <T> T fetched(String projectName, int sequence, T value) {
+        record(projectName, JobJournal.State.FETCHED, sequence, null);
+        return value;
+    }
+
+    private <T> void complete(String projectName, CompletableFuture<T> result, T value, Throwable ex) {
+        if (ex != null) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            record(projectName, JobJournal.State.FAILED, 0, String.valueOf(cause.getMessage()));
+            result.completeExceptionally(cause);
+        } else {
+            result.complete(value);
+        }
+        finish();
+    }
+
+    /**
+     * journal 에 상태 기록
+     *      - SUBMITTED 외에는 기록을 기다리지 않습니다. (기록되지 않아도 재개 시 상태 확인 / 결과 조회를 다시 할 뿐입니다.)
+     */
+    private CompletableFuture<Void> record(String projectName, JobJournal.State state, int sequence, String message) {
+        if (journal == null) return CompletableFuture.completedFuture(null);
+        return journal.append(projectName, state, sequence, message);
+    }
+
+    /**
+     * SUBMITTED 로 기록한 분석 요청이 서버에 전달됐는지 확인
+     * @param sequence SUBMITTED 기록 시 (분석 요청 전) 서버의 sequence
+     * @return 진행중이거나 이후에 분석이 끝난 경우 (성공 / 실패 모두) true
+     */
+    private static boolean isSubmitted(JSONObject status, int sequence) {
+        return RestSample.isRunning(status.optString("status")) || StatusScheduler.sequenceOf(status) > sequence;
+    }
+
+    private void analyze(String projectName) {
+        try {
+            analyzer.analyze(projectName);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(String.format("[%s] analysis failed: %s", projectName, e.getMessage()), e);
+        }
+    }
+
+    private static <T> T load(ResultLoader<T> loader, String projectName, int sequence) {
+        try {
+            return loader.load(projectName, sequence);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(String.format("[%s] load result failed: %s", projectName, e.getMessage()), e);
+        }
+    }
+
+    private synchronized void begin() {
+        unfinished++;
+    }
+
+    private void enqueue(Runnable start) {
+        synchronized (this) {
+            unfinished++;
+            pending.add(start);
+        }
+        dispatch();
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        dispatch();
+    }
+
+    private synchronized void finish() {
+        unfinished--;
+        notifyAll();
+    }
+
+    /**
+     * 실행할 작업은 lock 안에서 꺼내고, 실행 (분석 요청 / journal 기록 시작) 은 lock 밖에서 합니다.
+     *      - release 는 HTTP / journal 완료 thread 에서 호출되므로 lock 을 잡은 채로 다음 작업을 시작하지 않습니다.
+     */
+    private void dispatch() {
+        List<Runnable> ready = new ArrayList<>();
+        synchronized (this) {
+            while (inFlight < maxInFlight && !pending.isEmpty()) {
+                inFlight++;
+                ready.add(pending.poll());
+            }
+        }
+        for (Runnable start : ready) {
+            start.run();
+        }
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 대기중인 분석과 결과 조회가 모두 끝난 후 종료
+     */
+    @Override
+    public void close() {
+        try {
+            synchronized (this) {
+                while (unfinished > 0) {
+                    wait();
+                }
+            }
+            workers.shutdown();
+            workers.awaitTermination(RestSample.REQUEST_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+}
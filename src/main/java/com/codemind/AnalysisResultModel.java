@@ -0,0 +1,468 @@
+package com.codemind;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 분석 결과 in-memory model (보고서 생성 등 결과 전체를 random access 해야 하는 경우)
+ *      - JSONObject tree 대신 AnalysisResultParser 로 읽으면서 바로 primitive 배열에 저장합니다.
+ *      - 파일 경로, canon id, lang, status 는 id table 로 한 번만 저장하고 warn 에는 id 만 저장합니다.
+ *      - 위치 (file, sLine, sColumn, eLine, eColumn) 는 int 5 개씩 묶어서 배열 하나에 저장합니다.
+ *        traces 는 warn 별 시작 위치 (offset) 배열 + 전체 trace 배열로 저장합니다.
+ *      - 파일 별, canon 별 warn 목록은 같은 방식 (offset + row 배열) 의 index 로 조회합니다.
+ *      - files[*].code 는 읽지 않습니다.
+ *
+ *  ex) X 파일의 취약점
+ *      AnalysisResultModel model = AnalysisResultModel.read(in);
+ *      int file = model.findFile(X);
+ *      for (int i = 0; i < model.getFileWarnCount(file); i++) {
+ *          int row = model.getFileWarn(file, i);
+ *          model.getCanonId(model.getCanon(row)), model.getSLine(row), model.getTraceCount(row) ...
+ *      }
+ */
+public class AnalysisResultModel {
+    static final int FILE = 0;
+    static final int S_LINE = 1;
+    static final int S_COLUMN = 2;
+    static final int E_LINE = 3;
+    static final int E_COLUMN = 4;
+    static final int LOCATION_SIZE = 5;
+
+    private final String project;
+    private final long startTime;
+    private final long endTime;
+    private final long totalLines;
+
+    private final StringTable files;
+    private final int[] fileLines;
+    private final StringTable canons;
+    private final String[] canonCwe;
+    private final String[] canonNames;
+    private final String[] canonDescriptions;
+    private final int[] canonRisky;
+    private final StringTable langs;
+    private final StringTable statuses;
+
+    private final int warnCount;
+    private final int[] warnIds;
+    private final int[] warnFiles;
+    private final int[] warnCanons;
+    private final int[] warnLangs;
+    private final int[] warnStatuses;
+    private final int[] sinks;              // warn 당 LOCATION_SIZE
+    private final int[] traceOffsets;       // warnCount + 1
+    private final int[] traces;             // trace 당 LOCATION_SIZE
+
+    private final int[] fileOffsets;        // fileCount + 1
+    private final int[] fileWarns;
+    private final int[] canonOffsets;       // canonCount + 1
+    private final int[] canonWarns;
+
+    private AnalysisResultModel(Loader loader) {
+        project = loader.project;
+        startTime = loader.startTime;
+        endTime = loader.endTime;
+        totalLines = loader.totalLines;
+
+        files = loader.files;
+        fileLines = loader.fileLines.toArray();
+        canons = loader.canons;
+        canonCwe = loader.canonCwe.toArray(new String[0]);
+        canonNames = loader.canonNames.toArray(new String[0]);
+        canonDescriptions = loader.canonDescriptions.toArray(new String[0]);
+        canonRisky = loader.canonRisky.toArray();
+        langs = loader.langs;
+        statuses = loader.statuses;
+
+        warnCount = loader.warnIds.size();
+        warnIds = loader.warnIds.toArray();
+        warnFiles = loader.warnFiles.toArray();
+        warnCanons = loader.warnCanons.toArray();
+        warnLangs = loader.warnLangs.toArray();
+        warnStatuses = loader.warnStatuses.toArray();
+        sinks = loader.sinks.toArray();
+        traceOffsets = loader.traceOffsets.toArray();
+        traces = loader.traces.toArray();
+
+        fileOffsets = new int[files.size() + 1];
+        fileWarns = index(warnFiles, fileOffsets);
+        canonOffsets = new int[canons.size() + 1];
+        canonWarns = index(warnCanons, canonOffsets);
+    }
+
+    /**
+     * analysis-result 응답 body 를 읽어서 model 생성 (stream 은 닫습니다.)
+     */
+    public static AnalysisResultModel read(InputStream in) throws IOException {
+        Loader loader = new Loader();
+        try (AnalysisResultParser parser = new AnalysisResultParser(in)) {
+            parser.parse(loader);
+        }
+        return new AnalysisResultModel(loader);
+    }
+
+    /**
+     * key (file / canon id) 별 warn row 목록 - counting sort 이므로 key 안에서는 row 순서대로입니다.
+     * @param keys warn 별 key
+     * @param offsets key 별 시작 위치 (key 개수 + 1, 여기에 채워집니다.)
+     */
+    private static int[] index(int[] keys, int[] offsets) {
+        for (int key : keys) offsets[key + 1]++;
+        for (int i = 1; i < offsets.length; i++) offsets[i] += offsets[i - 1];
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        int[] rows = new int[keys.length];
+        for (int row = 0; row < keys.length; row++) {
+            rows[next[keys[row]]++] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * AnalysisResultParser 이벤트를 가변 배열에 모읍니다.
+     */
+    private static class Loader implements AnalysisResultParser.Handler {
+        private String project = "";
+        private long startTime;
+        private long endTime;
+        private long totalLines;
+
+        private final StringTable files = new StringTable();
+        private final IntArrayList fileLines = new IntArrayList();
+        private final StringTable canons = new StringTable();
+        private final List<String> canonCwe = new ArrayList<>();
+        private final List<String> canonNames = new ArrayList<>();
+        private final List<String> canonDescriptions = new ArrayList<>();
+        private final IntArrayList canonRisky = new IntArrayList();
+        private final StringTable langs = new StringTable();
+        private final StringTable statuses = new StringTable();
+
+        private final IntArrayList warnIds = new IntArrayList(1024);
+        private final IntArrayList warnFiles = new IntArrayList(1024);
+        private final IntArrayList warnCanons = new IntArrayList(1024);
+        private final IntArrayList warnLangs = new IntArrayList(1024);
+        private final IntArrayList warnStatuses = new IntArrayList(1024);
+        private final IntArrayList sinks = new IntArrayList(1024 * LOCATION_SIZE);
+        private final IntArrayList traceOffsets = new IntArrayList(1024);
+        private final IntArrayList traces = new IntArrayList(1024 * LOCATION_SIZE);
+
+        Loader() {
+            traceOffsets.add(0);
+        }
+
+        @Override
+        public void property(String key, Object value) {
+            switch (key) {
+                case "project":
+                    project = String.valueOf(value);
+                    break;
+                case "startTime":
+                    startTime = toLong(value);
+                    break;
+                case "endTime":
+                    endTime = toLong(value);
+                    break;
+                case "totalLines":
+                    totalLines = toLong(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void file(String path, JSONObject file) {
+            fileLines.set(file(path), file.optInt("line"));
+        }
+
+        @Override
+        public void canon(JSONObject canon) {
+            int id = canon(canon.optString("id"));
+            canonCwe.set(id, canon.optString("cwe"));
+            canonNames.set(id, canon.optString("name"));
+            canonDescriptions.set(id, canon.optString("description"));
+            canonRisky.set(id, canon.optInt("risky"));
+        }
+
+        @Override
+        public void warn(JSONObject warn) {
+            int file = file(warn.optString("file"));
+            warnIds.add(warn.optInt("id"));
+            warnFiles.add(file);
+            warnCanons.add(canon(warn.optString("canon")));
+            warnLangs.add(langs.intern(warn.optString("lang")));
+            warnStatuses.add(statuses.intern(warn.optString("status")));
+            location(sinks, warn.optJSONObject("sink"), file);
+
+            // traces 는 "0", "1" ... 을 key 로 하는 객체 또는 배열
+            Object value = warn.opt("traces");
+            if (value instanceof JSONArray) {
+                JSONArray array = (JSONArray) value;
+                for (int i = 0; i < array.length(); i++) {
+                    location(traces, array.optJSONObject(i), file);
+                }
+            } else if (value instanceof JSONObject) {
+                JSONObject object = (JSONObject) value;
+                String[] keys = object.keySet().toArray(new String[0]);
+                Arrays.sort(keys, (a, b) -> a.length() != b.length() ? a.length() - b.length() : a.compareTo(b));   // 숫자 순서
+                for (String key : keys) {
+                    JSONObject trace = object.optJSONObject(key);
+                    if (trace != null) location(traces, trace, file);
+                }
+            }
+            traceOffsets.add(traces.size() / LOCATION_SIZE);
+        }
+
+        /**
+         * @param file 위치에 file 이 없으면 warn 의 file
+         */
+        private void location(IntArrayList target, JSONObject location, int file) {
+            if (location == null) {
+                target.add(file);
+                for (int i = 1; i < LOCATION_SIZE; i++) target.add(0);
+                return;
+            }
+            String path = location.optString("file");
+            target.add(path.isEmpty() ? file : file(path));
+            target.add(location.optInt("sLine"));
+            target.add(location.optInt("sColumn"));
+            target.add(location.optInt("eLine"));
+            target.add(location.optInt("eColumn"));
+        }
+
+        /**
+         * files / canons 보다 warns 가 먼저 올 수 있으므로 처음 나온 곳에서 id 를 등록합니다.
+         */
+        private int file(String path) {
+            int id = files.intern(path);
+            if (id == fileLines.size()) fileLines.add(0);
+            return id;
+        }
+
+        private int canon(String canonId) {
+            int id = canons.intern(canonId);
+            if (id == canonRisky.size()) {
+                canonCwe.add("");
+                canonNames.add("");
+                canonDescriptions.add("");
+                canonRisky.add(0);
+            }
+            return id;
+        }
+
+        private static long toLong(Object value) {
+            return value instanceof Number ? ((Number) value).longValue() : 0;
+        }
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getTotalLines() {
+        return totalLines;
+    }
+
+    /**
+     * @return 없으면 -1
+     */
+    public int findFile(String path) {
+        return files.find(path);
+    }
+
+    /**
+     * @return 없으면 -1
+     */
+    public int findCanon(String canonId) {
+        return canons.find(canonId);
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public String getFilePath(int file) {
+        return files.get(file);
+    }
+
+    public int getFileLine(int file) {
+        return fileLines[file];
+    }
+
+    public int getCanonCount() {
+        return canons.size();
+    }
+
+    public String getCanonId(int canon) {
+        return canons.get(canon);
+    }
+
+    public String getCwe(int canon) {
+        return canonCwe[canon];
+    }
+
+    public String getCanonName(int canon) {
+        return canonNames[canon];
+    }
+
+    public String getCanonDescription(int canon) {
+        return canonDescriptions[canon];
+    }
+
+    public int getRisky(int canon) {
+        return canonRisky[canon];
+    }
+
+    public int getWarnCount() {
+        return warnCount;
+    }
+
+    public int getWarnId(int row) {
+        return warnIds[row];
+    }
+
+    public int getFile(int row) {
+        return warnFiles[row];
+    }
+
+    public int getCanon(int row) {
+        return warnCanons[row];
+    }
+
+    public String getLang(int row) {
+        return langs.get(warnLangs[row]);
+    }
+
+    public String getStatus(int row) {
+        return statuses.get(warnStatuses[row]);
+    }
+
+    /**
+     * sink 위치 - 보통 warn 의 file 과 같습니다.
+     */
+    public int getSinkFile(int row) {
+        return sinks[row * LOCATION_SIZE + FILE];
+    }
+
+    public int getSLine(int row) {
+        return sinks[row * LOCATION_SIZE + S_LINE];
+    }
+
+    public int getSColumn(int row) {
+        return sinks[row * LOCATION_SIZE + S_COLUMN];
+    }
+
+    public int getELine(int row) {
+        return sinks[row * LOCATION_SIZE + E_LINE];
+    }
+
+    public int getEColumn(int row) {
+        return sinks[row * LOCATION_SIZE + E_COLUMN];
+    }
+
+    public int getTraceCount(int row) {
+        return traceOffsets[row + 1] - traceOffsets[row];
+    }
+
+    /**
+     * @param index 0 ~ getTraceCount(row) - 1
+     */
+    public int getTraceFile(int row, int index) {
+        return traces[trace(row, index) + FILE];
+    }
+
+    public int getTraceSLine(int row, int index) {
+        return traces[trace(row, index) + S_LINE];
+    }
+
+    public int getTraceSColumn(int row, int index) {
+        return traces[trace(row, index) + S_COLUMN];
+    }
+
+    public int getTraceELine(int row, int index) {
+        return traces[trace(row, index) + E_LINE];
+    }
+
+    public int getTraceEColumn(int row, int index) {
+        return traces[trace(row, index) + E_COLUMN];
+    }
+
+    private int trace(int row, int index) {
+        if (index < 0 || index >= getTraceCount(row)) {
+            throw new IndexOutOfBoundsException("trace: " + index + ", count: " + getTraceCount(row));
+        }
+        return (traceOffsets[row] + index) * LOCATION_SIZE;
+    }
+
+    /**
+     * 파일 별 warn 수 (warn 의 file 기준)
+     */
+    public int getFileWarnCount(int file) {
+        return fileOffsets[file + 1] - fileOffsets[file];
+    }
+
+    /**
+     * @param index 0 ~ getFileWarnCount(file) - 1
+     * @return warn row
+     */
+    public int getFileWarn(int file, int index) {
+        if (index < 0 || index >= getFileWarnCount(file)) {
+            throw new IndexOutOfBoundsException("warn: " + index + ", count: " + getFileWarnCount(file));
+        }
+        return fileWarns[fileOffsets[file] + index];
+    }
+
+    public int getCanonWarnCount(int canon) {
+        return canonOffsets[canon + 1] - canonOffsets[canon];
+    }
+
+    /**
+     * @param index 0 ~ getCanonWarnCount(canon) - 1
+     * @return warn row
+     */
+    public int getCanonWarn(int canon, int index) {
+        if (index < 0 || index >= getCanonWarnCount(canon)) {
+            throw new IndexOutOfBoundsException("warn: " + index + ", count: " + getCanonWarnCount(canon));
+        }
+        return canonWarns[canonOffsets[canon] + index];
+    }
+
+    /**
+     * @return 파일의 warn row 목록 (없는 파일이면 빈 배열)
+     */
+    public int[] getWarnsByFile(String path) {
+        int file = findFile(path);
+        return file < 0 ? new int[0] : Arrays.copyOfRange(fileWarns, fileOffsets[file], fileOffsets[file + 1]);
+    }
+
+    /**
+     * @return canon 의 warn row 목록 (없는 canon 이면 빈 배열)
+     */
+    public int[] getWarnsByCanon(String canonId) {
+        int canon = findCanon(canonId);
+        return canon < 0 ? new int[0] : Arrays.copyOfRange(canonWarns, canonOffsets[canon], canonOffsets[canon + 1]);
+    }
+
+    @Override
+    public String toString() {
+        return "project: " + project +
+                ", totalLines: " + totalLines +
+                ", files: " + files.size() +
+                ", canons: " + canons.size() +
+                ", warns: " + warnCount +
+                ", traces: " + traces.length / LOCATION_SIZE;
+    }
+}
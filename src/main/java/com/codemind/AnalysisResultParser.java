@@ -0,0 +1,272 @@
+package com.codemind;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * /api/{project}/{sequence}/analysis-result 응답 스트리밍 파서
+ *      - 응답 전체를 String / JSONObject 로 읽지 않고 InputStream 에서 순차적으로 읽으면서
+ *        warns, files, canons 항목을 하나씩 Handler 로 전달합니다.
+ *      - files[*].code 는 includeCode(true) 를 지정하지 않으면 읽지 않고 건너뜁니다.
+ *        includeCode 인 경우에도 String 으로 만들지 않고 escape 된 byte 그대로 EncodedSource 로 전달합니다.
+ */
+public class AnalysisResultParser implements Closeable {
+
+    /**
+     * 파싱 이벤트 수신
+     */
+    public interface Handler {
+        /**
+         * warns, files, canons 외의 최상위 항목 (user, project, totalLines, startTime, endTime, ruleset ...)
+         */
+        default void property(String key, Object value) {}
+
+        default void canon(JSONObject canon) {}
+
+        /**
+         * @param path files 의 key
+         * @param file path, line 등 파일 정보 (code 제외)
+         */
+        default void file(String path, JSONObject file) {}
+
+        /**
+         * @param code includeCode 가 아니거나 code 가 없으면 null
+         */
+        default void file(String path, JSONObject file, EncodedSource code) {
+            file(path, file);
+        }
+
+        default void warn(JSONObject warn) {}
+    }
+
+    private final InputStream in;
+    private final JSONTokener tokener;
+    private boolean includeCode = false;
+
+    public AnalysisResultParser(InputStream in) {
+        this.in = in;
+        this.tokener = new JSONTokener(in);
+    }
+
+    /**
+     * files[*].code 포함 여부 (기본값 false)
+     */
+    public AnalysisResultParser includeCode(boolean includeCode) {
+        this.includeCode = includeCode;
+        return this;
+    }
+
+    public void parse(Handler handler) {
+        if (tokener.nextClean() != '{') {
+            throw tokener.syntaxError("A JSONObject text must begin with '{'");
+        }
+        if (isEmpty('}')) return;
+        do {
+            String key = nextKey();
+            switch (key) {
+                case "warns":
+                    parseEntries(handler, false);
+                    break;
+                case "canons":
+                    parseEntries(handler, true);
+                    break;
+                case "files":
+                    parseFiles(handler);
+                    break;
+                default:
+                    handler.property(key, tokener.nextValue());
+                    break;
+            }
+        } while (nextMember('}'));
+    }
+
+    /**
+     * warns, canons 는 배열 또는 id 를 key 로 하는 객체로 전달됩니다.
+     */
+    private void parseEntries(Handler handler, boolean canon) {
+        char c = tokener.nextClean();
+        if (c == 'n') {
+            tokener.back();
+            tokener.nextValue();        // null
+            return;
+        }
+        boolean array = c == '[';
+        if (!array && c != '{') {
+            throw tokener.syntaxError("A JSONArray or JSONObject expected");
+        }
+        char end = array ? ']' : '}';
+        if (isEmpty(end)) return;
+        do {
+            if (!array) nextKey();
+            Object value = tokener.nextValue();
+            if (!(value instanceof JSONObject)) continue;
+            if (canon) handler.canon((JSONObject) value);
+            else handler.warn((JSONObject) value);
+        } while (nextMember(end));
+    }
+
+    private void parseFiles(Handler handler) {
+        char c = tokener.nextClean();
+        if (c == 'n') {
+            tokener.back();
+            tokener.nextValue();
+            return;
+        }
+        if (c != '{') {
+            throw tokener.syntaxError("A JSONObject text must begin with '{'");
+        }
+        if (isEmpty('}')) return;
+        do {
+            String path = nextKey();
+            parseFile(handler, path);
+        } while (nextMember('}'));
+    }
+
+    /**
+     * 파일 한 건 - code 는 필요한 경우에만 byte 로 읽습니다.
+     */
+    private void parseFile(Handler handler, String path) {
+        JSONObject file = new JSONObject();
+        EncodedSource code = null;
+        if (tokener.nextClean() != '{') {
+            throw tokener.syntaxError("A JSONObject text must begin with '{'");
+        }
+        if (!isEmpty('}')) {
+            do {
+                String key = nextKey();
+                if (!key.equals("code")) {
+                    file.put(key, tokener.nextValue());
+                } else if (includeCode) {
+                    code = readEncoded();
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}'));
+        }
+        handler.file(path, file, code);
+    }
+
+    /**
+     * JSON 문자열을 UTF-8 byte 로 읽습니다. (@{b}, @{n} escape 는 그대로 둡니다.)
+     */
+    private EncodedSource readEncoded() {
+        char c = tokener.nextClean();
+        if (c != '"') {
+            tokener.back();
+            Object value = tokener.nextValue();
+            return value instanceof String ? EncodedSource.of((String) value) : null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        char high = 0;
+        while (true) {
+            c = tokener.next();
+            if (c == 0) {
+                throw tokener.syntaxError("Unterminated string");
+            } else if (c == '"') {
+                return new EncodedSource(out.toByteArray());
+            } else if (c == '\\') {
+                c = unescape(tokener.next());
+            }
+
+            if (Character.isHighSurrogate(c)) {
+                high = c;
+            } else if (Character.isLowSurrogate(c) && high != 0) {
+                int codePoint = Character.toCodePoint(high, c);
+                out.write(0xf0 | (codePoint >> 18));
+                out.write(0x80 | ((codePoint >> 12) & 0x3f));
+                out.write(0x80 | ((codePoint >> 6) & 0x3f));
+                out.write(0x80 | (codePoint & 0x3f));
+                high = 0;
+            } else if (c < 0x80) {
+                out.write(c);
+            } else if (c < 0x800) {
+                out.write(0xc0 | (c >> 6));
+                out.write(0x80 | (c & 0x3f));
+            } else {
+                out.write(0xe0 | (c >> 12));
+                out.write(0x80 | ((c >> 6) & 0x3f));
+                out.write(0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private char unescape(char c) {
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'f':
+                return '\f';
+            case 'r':
+                return '\r';
+            case 'u':
+                try {
+                    return (char) Integer.parseInt(tokener.next(4), 16);
+                } catch (NumberFormatException e) {
+                    throw tokener.syntaxError("Illegal escape.");
+                }
+            default:
+                return c;       // " \\ /
+        }
+    }
+
+    /**
+     * 문자열 값은 내용을 저장하지 않고 건너뜁니다.
+     */
+    private void skipValue() {
+        char c = tokener.nextClean();
+        if (c != '"') {
+            tokener.back();
+            tokener.nextValue();
+            return;
+        }
+        while (true) {
+            c = tokener.next();
+            if (c == 0) {
+                throw tokener.syntaxError("Unterminated string");
+            } else if (c == '\\') {
+                tokener.next();
+            } else if (c == '"') {
+                return;
+            }
+        }
+    }
+
+    private String nextKey() {
+        char c = tokener.nextClean();
+        if (c != '"') {
+            throw tokener.syntaxError("A JSONObject key must be a string");
+        }
+        String key = tokener.nextString('"');
+        if (tokener.nextClean() != ':') {
+            throw tokener.syntaxError("Expected a ':' after a key");
+        }
+        return key;
+    }
+
+    private boolean isEmpty(char end) {
+        if (tokener.nextClean() == end) return true;
+        tokener.back();
+        return false;
+    }
+
+    private boolean nextMember(char end) {
+        char c = tokener.nextClean();
+        if (c == ',') return true;
+        if (c == end) return false;
+        throw tokener.syntaxError("Expected a ',' or '" + end + "'");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,94 @@
+package com.codemind;
+
+import org.json.JSONObject;
+
+/**
+ * 분석결과 요약정보
+ *      - AnalysisResultParser 로 analysis-result 를 읽으면서 건수만 집계합니다.
+ */
+public class AnalysisSummary implements AnalysisResultParser.Handler {
+    private String project = "";
+    private long totalLines;
+    private long startTime;
+    private long endTime;
+    private int files;
+    private int warns;
+    private int canons;
+
+    @Override
+    public void property(String key, Object value) {
+        switch (key) {
+            case "project":
+                project = String.valueOf(value);
+                break;
+            case "totalLines":
+                totalLines = toLong(value);
+                break;
+            case "startTime":
+                startTime = toLong(value);
+                break;
+            case "endTime":
+                endTime = toLong(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void canon(JSONObject canon) {
+        canons++;
+    }
+
+    @Override
+    public void file(String path, JSONObject file) {
+        files++;
+    }
+
+    @Override
+    public void warn(JSONObject warn) {
+        warns++;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public long getTotalLines() {
+        return totalLines;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public int getWarns() {
+        return warns;
+    }
+
+    public int getCanons() {
+        return canons;
+    }
+
+    @Override
+    public String toString() {
+        return "project: " + project +
+                ", totalLines: " + totalLines +
+                ", files: " + files +
+                ", vulnerability: " + warns +
+                ", startTime: " + startTime +
+                ", endTime: " + endTime;
+    }
+}
@@ -0,0 +1,359 @@
+package com.codemind;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.client.methods.ZeroCopyConsumer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONObject;
+
+import javax.security.auth.login.LoginException;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidParameterException;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * CODEMIND REST api 비동기 client
+ *      - NIO reactor (httpasyncclient) 위에서 동작하며 모든 요청은 CompletableFuture 를 반환합니다.
+ *      - 적은 수의 I/O thread 로 많은 상태 조회 / 결과 다운로드를 동시에 처리할 수 있습니다.
+ *      - 분석 결과는 임시 파일로 받은 후 parseExecutor 에서 AnalysisResultParser 로 읽습니다.
+ *        gzip / deflate 로 압축해서 받고, 임시 파일에도 압축된 그대로 저장한 후 파싱하면서 풉니다.
+ */
+public class AsyncRestClient implements Closeable {
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private final String baseUrl;
+    private final CloseableHttpAsyncClient client;
+    private final Executor parseExecutor;
+    private volatile String csrf = "";
+    private volatile String resultQuery = "";
+
+    public AsyncRestClient(String baseUrl) throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
+        this(baseUrl, 2, 100, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param baseUrl CODEMIND 서버 URL
+     * @param ioThreads I/O reactor thread 수
+     * @param maxConnections 최대 connection 수
+     * @param parseExecutor 결과 파싱 실행 (I/O thread 에서 파싱하지 않도록)
+     */
+    public AsyncRestClient(String baseUrl, int ioThreads, int maxConnections, Executor parseExecutor)
+            throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
+        SSLContextBuilder sslContextBuilder = new SSLContextBuilder();
+        sslContextBuilder.loadTrustMaterial(null, new TrustSelfSignedStrategy());
+
+        this.baseUrl = baseUrl;
+        this.parseExecutor = parseExecutor;
+        this.client = HttpAsyncClients.custom()
+                .setSSLContext(sslContextBuilder.build())
+                .setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads)
+                        .setSoKeepAlive(true)
+                        .setTcpNoDelay(true)
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(10000)
+                        .setSocketTimeout(60000)
+                        .build())
+                .setThreadFactory(AnalysisOrchestrator.daemonThreads("codemind-io"))
+                .build();
+        this.client.start();
+    }
+
+    /**
+     * 분석 결과 조회 시 추가할 query (기본값 없음)
+     *      ex) 서버에서 지원하는 경우 files[*].code 를 제외하고 받도록 지정
+     *      지정하지 않아도 code 는 AnalysisResultParser 에서 읽지 않고 건너뜁니다.
+     */
+    public AsyncRestClient resultQuery(String resultQuery) {
+        this.resultQuery = resultQuery == null ? "" : resultQuery;
+        return this;
+    }
+
+    /**
+     * 로그인
+     */
+    public CompletableFuture<Void> login(String username, String password) {
+        HttpPost post = new HttpPost(baseUrl + "/user/login/process");
+        List<NameValuePair> entity = new ArrayList<>();
+        entity.add(new BasicNameValuePair("REQUEST_KIND", "API"));
+        entity.add(new BasicNameValuePair("username", username));
+        entity.add(new BasicNameValuePair("password", password));
+        post.setEntity(new UrlEncodedFormEntity(entity, StandardCharsets.UTF_8));
+        return execute(post).thenApply(response -> {
+            String content = toString(response);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new CompletionException(new HttpResponseException(response.getStatusLine().getStatusCode(), content));
+            }
+            if (content.startsWith("CM-")) {
+                throw new CompletionException(new LoginException("login failed: " + content));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * /user/login/check
+     * @return _csrf
+     */
+    public CompletableFuture<String> checkLogin() {
+        HttpGet get = new HttpGet(baseUrl + "/user/login/check");
+        get.setHeader("Referer", baseUrl + "/user/login/process");
+        return executeForContent(get).thenApply(content -> {
+            csrf = new JSONObject(content).getString("_csrf");
+            return csrf;
+        });
+    }
+
+    /**
+     * 프로젝트 분석 요청
+     */
+    public CompletableFuture<Void> analyze(String projectName) {
+        HttpPost post = new HttpPost(baseUrl + "/api/analysis/" + projectName);
+        return execute(post).thenApply(response -> {
+            String content = toString(response);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new CompletionException(new InvalidParameterException(new JSONObject(content).getString("message")));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 프로젝트 분석 진행상태 조회 - StatusScheduler 의 StatusSource 로 사용할 수 있습니다.
+     *      ex) new StatusScheduler(asyncRestClient::getStatus)
+     */
+    public CompletableFuture<JSONObject> getStatus(String projectName) {
+        return executeForContent(new HttpGet(baseUrl + "/api/" + projectName + "/status")).thenApply(JSONObject::new);
+    }
+
+    /**
+     * 프로젝트 분석 결과 조회 (요약정보)
+     */
+    public CompletableFuture<AnalysisSummary> loadAnalysisResult(String projectName, int sequence) {
+        return loadAnalysisResult(projectName, sequence, new AnalysisSummary());
+    }
+
+    /**
+     * 프로젝트 분석 결과 조회
+     *      - 응답은 임시 파일로 받고, 다운로드가 끝나면 parseExecutor 에서 handler 로 전달합니다.
+     */
+    public <H extends AnalysisResultParser.Handler> CompletableFuture<H> loadAnalysisResult(String projectName, int sequence, H handler) {
+        File file;
+        try {
+            file = File.createTempFile("analysis-result-", ".json");
+        } catch (IOException e) {
+            CompletableFuture<H> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        String url = baseUrl + "/api/" + projectName + "/" + sequence + "/analysis-result";
+        HttpGet get = new HttpGet(resultQuery.isEmpty() ? url : url + "?" + resultQuery);
+        get.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+        return download(get, file)
+                .thenApplyAsync(encoding -> {
+                    try (AnalysisResultParser parser = new AnalysisResultParser(decode(new FileInputStream(file), encoding))) {
+                        parser.parse(handler);
+                        return handler;
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, parseExecutor)
+                .whenComplete((h, ex) -> file.delete());
+    }
+
+    /**
+     * 규칙별 분석 결과 조회
+     */
+    public CompletableFuture<JSONObject> loadAnalysisResultRuleStatistics(String projectName, int sequence) {
+        HttpGet get = new HttpGet(baseUrl + "/api/" + projectName + "/" + sequence + "/analysis-result-rule-statistics");
+        return executeForContent(get).thenApply(JSONObject::new);
+    }
+
+    /**
+     * 응답 body 를 file 로 저장 (ZeroCopyConsumer - heap 을 거치지 않음)
+     */
+    public CompletableFuture<File> download(String url, File file) {
+        return download(new HttpGet(url), file).thenApply(encoding -> file);
+    }
+
+    /**
+     * 응답 body 를 받은 그대로 (압축된 경우 압축된 채로) file 에 저장
+     * @return 응답의 Content-Encoding (없으면 null)
+     */
+    private CompletableFuture<String> download(HttpGet get, File file) {
+        ZeroCopyConsumer<String> consumer;
+        try {
+            consumer = new ZeroCopyConsumer<String>(file) {
+                @Override
+                protected String process(HttpResponse response, File file, ContentType contentType) throws Exception {
+                    Header header = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+                    String encoding = header == null ? null : header.getValue();
+                    if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        try (InputStream in = decode(new FileInputStream(file), encoding)) {
+                            byte[] buffer = new byte[8192];
+                            for (int n; (n = in.read(buffer)) != -1; ) out.write(buffer, 0, n);
+                        }
+                        throw new InvalidParameterException(new String(out.toByteArray(), StandardCharsets.UTF_8));
+                    }
+                    return encoding;
+                }
+            };
+        } catch (IOException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return execute(get, consumer);
+    }
+
+    /**
+     * Content-Encoding 에 따라 압축을 풀면서 읽는 stream
+     *      - deflate 는 zlib 형식과 header 없는 raw deflate 를 모두 처리합니다.
+     */
+    static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isEmpty() || contentEncoding.equalsIgnoreCase("identity")) {
+            return in;
+        }
+        String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        try {
+            if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+                return new GZIPInputStream(in, 65536);
+            }
+            if (encoding.equals("deflate")) {
+                return new DeflateInputStream(in);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        in.close();
+        throw new IOException("unsupported Content-Encoding: " + contentEncoding);
+    }
+
+    /**
+     * 프로젝트 생성 (form 에 _csrf 가 없으면 checkLogin 으로 받은 값을 추가합니다.)
+     */
+    public CompletableFuture<String> addProject(List<NameValuePair> form) {
+        HttpPost post = new HttpPost(baseUrl + "/api/project/create");
+        post.setEntity(new UrlEncodedFormEntity(withCsrf(form), StandardCharsets.UTF_8));
+        post.setHeader("Referer", baseUrl);
+        return executeForContent(post);
+    }
+
+    public CompletableFuture<String> updateProject(String projectName, List<NameValuePair> form) {
+        HttpPut put = new HttpPut(baseUrl + "/api/project/" + projectName + "/update");
+        put.setEntity(new UrlEncodedFormEntity(form, StandardCharsets.UTF_8));
+        return executeForContent(put);
+    }
+
+    public CompletableFuture<String> deleteProject(String projectName) {
+        return executeForContent(new HttpGet(baseUrl + "/api/project/" + projectName + "/delete"));
+    }
+
+    private List<NameValuePair> withCsrf(List<NameValuePair> form) {
+        for (NameValuePair pair : form) {
+            if (pair.getName().equals("_csrf")) return form;
+        }
+        List<NameValuePair> entity = new ArrayList<>(form);
+        entity.add(new BasicNameValuePair("_csrf", csrf));
+        return entity;
+    }
+
+    /**
+     * 200 이 아니면 InvalidParameterException 으로 완료
+     */
+    private CompletableFuture<String> executeForContent(HttpUriRequest request) {
+        return execute(request).thenApply(response -> {
+            String content = toString(response);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new CompletionException(new InvalidParameterException(content));
+            }
+            return content;
+        });
+    }
+
+    private CompletableFuture<HttpResponse> execute(HttpUriRequest request) {
+        return execute(request, HttpAsyncMethods.createConsumer());
+    }
+
+    private <T> CompletableFuture<T> execute(HttpUriRequest request, HttpAsyncResponseConsumer<T> consumer) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        client.execute(HttpAsyncMethods.create(request), consumer, new FutureCallback<T>() {
+            @Override
+            public void completed(T result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                future.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    private static String toString(HttpResponse response) {
+        try {
+            return response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    public String getCsrf() {
+        return csrf;
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+}
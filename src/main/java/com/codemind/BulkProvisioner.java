@@ -0,0 +1,244 @@
+package com.codemind;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프로젝트 일괄 생성 / 수정 / 삭제
+ *      - manifest (ProjectDefinition) 의 프로젝트들을 여러 thread 에서 동시에 요청하고, 전체 요청 속도는 TokenBucket 으로 제한합니다.
+ *      - I/O 오류, 429, 5xx 는 backoff 후 다시 요청합니다. (circuit 이 열려 있으면 닫힐 때까지 대기)
+ *      - 다시 요청해도 결과가 같도록 생성 실패 시 이미 있는 프로젝트인지, 삭제 실패 시 없는 프로젝트인지 확인합니다.
+ *
+ *  ex) try (BulkProvisioner provisioner = new BulkProvisioner(session, CODEMIND_URL, 8, 20)) {
+ *          List<ProvisionResult> results = provisioner.provision(ProjectDefinition.load(manifest));
+ *          BulkProvisioner.writeReport(results, report);
+ *      }
+ */
+public class BulkProvisioner implements Closeable {
+    static final int MAX_ATTEMPTS = 4;
+    static final long INITIAL_BACKOFF = 500;        // ms
+    static final long MAX_BACKOFF = 10000;          // ms
+
+    private final SessionManager session;
+    private final String baseUrl;
+    private final TokenBucket rateLimit;
+    private final ExecutorService workers;
+
+    /**
+     * @param concurrency 동시 요청 수
+     * @param requestsPerSecond 초당 최대 요청 수 (재시도, 존재 확인 요청 포함)
+     */
+    public BulkProvisioner(SessionManager session, String baseUrl, int concurrency, double requestsPerSecond) {
+        this(session, baseUrl, concurrency, new TokenBucket(requestsPerSecond, concurrency));
+    }
+
+    public BulkProvisioner(SessionManager session, String baseUrl, int concurrency, TokenBucket rateLimit) {
+        this.session = session;
+        this.baseUrl = baseUrl;
+        this.rateLimit = rateLimit;
+        this.workers = Executors.newFixedThreadPool(concurrency, AnalysisOrchestrator.daemonThreads("codemind-provision"));
+    }
+
+    /**
+     * @return manifest 순서대로 프로젝트별 결과 (예상하지 못한 예외로 끝난 프로젝트는 FAILED)
+     */
+    public List<ProvisionResult> provision(List<ProjectDefinition> projects) {
+        long start = System.nanoTime();
+        List<CompletableFuture<ProvisionResult>> futures = new ArrayList<>(projects.size());
+        for (ProjectDefinition project : projects) {
+            futures.add(CompletableFuture.supplyAsync(() -> provision(project), workers));
+        }
+        List<ProvisionResult> results = new ArrayList<>(projects.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                // provision() 밖으로 나온 RuntimeException - 나머지 프로젝트의 결과는 그대로 반환
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                results.add(result(projects.get(i), ProvisionResult.Status.FAILED, 1, start,
+                        cause.getClass().getSimpleName() + ": " + cause.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    public ProvisionResult provision(ProjectDefinition project) {
+        long start = System.nanoTime();
+        long backoff = INITIAL_BACKOFF;
+        boolean ambiguous = false;          // 이전 요청이 서버에 반영됐는지 알 수 없음
+        String message = null;
+        int attempt = 0;
+        try {
+            while (true) {
+                attempt++;
+                long wait = 0;              // circuit 이 열려 있으면 닫힐 때까지 대기
+                try {
+                    Reply reply = send(project);
+                    if (reply.status == HttpStatus.SC_OK) {
+                        return result(project, ProvisionResult.Status.SUCCESS, attempt, start, null);
+                    }
+                    message = reply.status + " " + reply.content;
+                    if (!isTransient(reply.status)) {
+                        // 이미 원하는 상태인지 확인 (이전 요청이 반영된 경우 성공으로 처리)
+                        String settled = settled(project);
+                        if (settled != null) {
+                            return result(project, ambiguous ? ProvisionResult.Status.SUCCESS : ProvisionResult.Status.SKIPPED,
+                                    attempt, start, settled);
+                        }
+                        return result(project, ProvisionResult.Status.FAILED, attempt, start, message);
+                    }
+                } catch (CircuitOpenException e) {
+                    message = e.getMessage();
+                    wait = e.getRetryAfter();
+                } catch (IOException e) {
+                    message = e.getClass().getSimpleName() + ": " + e.getMessage();
+                }
+                ambiguous = true;
+                if (attempt >= MAX_ATTEMPTS) {
+                    return result(project, ProvisionResult.Status.FAILED, attempt, start, message);
+                }
+                if (session.getMetrics() != null) {
+                    session.getMetrics().retry(path(project));
+                }
+                long jitter = (long) (backoff * StatusScheduler.JITTER * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+                TimeUnit.MILLISECONDS.sleep(Math.max(backoff + jitter, wait));
+                backoff = Math.min(backoff * 2, MAX_BACKOFF);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return result(project, ProvisionResult.Status.FAILED, attempt, start, "interrupted");
+        }
+    }
+
+    private static ProvisionResult result(ProjectDefinition project, ProvisionResult.Status status, int attempts, long start, String message) {
+        ProvisionResult result = new ProvisionResult(project, status, attempts,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), message);
+        System.out.println(result);
+        return result;
+    }
+
+    static boolean isTransient(int status) {
+        return status == 429 || status >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+    }
+
+    private Reply send(ProjectDefinition project) throws IOException, InterruptedException {
+        rateLimit.acquire();
+        return session.execute(csrf -> request(project, csrf),
+                response -> new Reply(response.getStatusLine().getStatusCode(),
+                        response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8)));
+    }
+
+    private static String path(ProjectDefinition project) {
+        switch (project.getAction()) {
+            case CREATE:
+                return "/api/project/create";
+            case UPDATE:
+                return "/api/project/" + project.getName() + "/update";
+            default:
+                return "/api/project/" + project.getName() + "/delete";
+        }
+    }
+
+    private HttpUriRequest request(ProjectDefinition project, String csrf) {
+        String url = baseUrl + path(project);
+        switch (project.getAction()) {
+            case CREATE: {
+                HttpPost post = new HttpPost(url);
+                post.setEntity(form(project.toCreateForm(), csrf));
+                post.setHeader("Referer", baseUrl);
+                return post;
+            }
+            case UPDATE: {
+                HttpPut put = new HttpPut(url);
+                put.setEntity(form(project.toUpdateForm(), csrf));
+                put.setHeader("Referer", baseUrl);
+                return put;
+            }
+            default:
+                return new HttpGet(url);
+        }
+    }
+
+    private static UrlEncodedFormEntity form(List<NameValuePair> entity, String csrf) {
+        entity.add(new BasicNameValuePair("_csrf", csrf));
+        return new UrlEncodedFormEntity(entity, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return 이미 원하는 상태면 사유, 아니면 null
+     */
+    private String settled(ProjectDefinition project) throws IOException, InterruptedException {
+        switch (project.getAction()) {
+            case CREATE:
+                return exists(project.getName()) ? "already exists" : null;
+            case DELETE:
+                return exists(project.getName()) ? null : "not found";
+            default:
+                return null;
+        }
+    }
+
+    private boolean exists(String projectName) throws IOException, InterruptedException {
+        rateLimit.acquire();
+        return session.execute(csrf -> new HttpGet(baseUrl + "/api/" + projectName + "/status"), response -> {
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode() == HttpStatus.SC_OK;
+        });
+    }
+
+    /**
+     * 결과 report (JSON) 저장
+     */
+    public static void writeReport(List<ProvisionResult> results, Path target) throws IOException {
+        int[] counts = new int[ProvisionResult.Status.values().length];
+        JSONArray items = new JSONArray();
+        for (ProvisionResult result : results) {
+            counts[result.getStatus().ordinal()]++;
+            items.put(result.toJSON());
+        }
+        JSONObject report = new JSONObject().put("total", results.size());
+        for (ProvisionResult.Status status : ProvisionResult.Status.values()) {
+            report.put(status.name().toLowerCase(), counts[status.ordinal()]);
+        }
+        report.put("results", items);
+        Files.write(target, report.toString(2).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    private static class Reply {
+        final int status;
+        final String content;
+
+        Reply(int status, String content) {
+            this.status = status;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.codemind;
+
+import java.io.IOException;
+
+/**
+ * endpoint 의 circuit 이 열려 있어서 요청을 보내지 않은 경우 (AdaptiveLimiter)
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+    private final long retryAfter;
+
+    public CircuitOpenException(String endpoint, long retryAfter) {
+        super(String.format("[%s] circuit open: retry after %d ms", endpoint, retryAfter));
+        this.endpoint = endpoint;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return 다시 요청할 수 있을 때까지 남은 시간 (ms)
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,465 @@
+package com.codemind;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * endpoint 별 요청 통계
+ *      - latency: 요청 전송 ~ 응답 header 수신
+ *      - transfer: 응답 body 를 읽는 동안 socket 에서 대기한 시간
+ *      - processing: 응답 body 를 읽기 시작해서 닫을 때까지 걸린 시간 중 transfer 를 제외한 시간 (파싱 등)
+ *      - 요청 수, 오류 (4xx / 5xx) 수, 응답 byte (압축된 크기), 재시도 수
+ *      - connection pool 상태 (leased / available / pending)
+ *
+ *  HttpClientPool.custom().metrics(metrics) 로 설정하면 interceptor 로 자동 기록됩니다.
+ *  JMX (registerMBeans) 또는 Reporter 로 조회합니다.
+ *
+ *  ex) ClientMetrics metrics = new ClientMetrics();
+ *      HttpClientPool pool = HttpClientPool.custom().metrics(metrics).build();
+ *      metrics.registerMBeans("RestSample");
+ *      metrics.startReporter(ClientMetrics.CONSOLE, 1, TimeUnit.MINUTES);
+ */
+public class ClientMetrics implements Closeable {
+    static final String ENDPOINT = "codemind.metrics.endpoint";
+    static final String START = "codemind.metrics.start";
+
+    private static final Pattern[] TEMPLATES = {
+            Pattern.compile("^/api/analysis/[^/]+$"),
+            Pattern.compile("^/api/project/[^/]+/(update|delete)$"),
+            Pattern.compile("^/api/[^/]+/status$"),
+            Pattern.compile("^/api/[^/]+/[^/]+/(analysis-result|analysis-result-rule-statistics)$"),
+    };
+    private static final String[] NAMES = {
+            "/api/analysis/{project}",
+            "/api/project/{project}/$1",
+            "/api/{project}/status",
+            "/api/{project}/{sequence}/$1",
+    };
+
+    /**
+     * 통계 출력
+     */
+    public interface Reporter {
+        void report(ClientMetrics metrics);
+    }
+
+    public static final Reporter CONSOLE = metrics -> System.out.println(metrics);
+
+    public interface EndpointMBean {
+        long getRequests();
+        long getErrors();
+        long getRetries();
+        long getBytes();
+        double getLatencyMean();
+        long getLatencyP50();
+        long getLatencyP99();
+        long getLatencyMax();
+        long getTransferP99();
+        long getProcessingP99();
+    }
+
+    public interface PoolMBean {
+        int getLeased();
+        int getAvailable();
+        int getPending();
+        int getMax();
+    }
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile PoolingHttpClientConnectionManager connectionManager;
+    private volatile String jmxName;
+    private ScheduledExecutorService reporter;
+
+    /**
+     * URL 경로를 endpoint 이름으로 변환 (프로젝트 이름, sequence 는 {project}, {sequence} 로 치환)
+     */
+    static String endpointOf(String uri) {
+        String path;
+        try {
+            path = URI.create(uri).getPath();
+        } catch (IllegalArgumentException e) {
+            path = uri.replaceFirst("^[a-z]+://[^/]*", "");
+        }
+        if (path == null) return uri;
+        for (int i = 0; i < TEMPLATES.length; i++) {
+            Matcher matcher = TEMPLATES[i].matcher(path);
+            if (matcher.matches()) {
+                return matcher.replaceFirst(NAMES[i]);
+            }
+        }
+        return path;
+    }
+
+    public Endpoint endpoint(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            Endpoint created = new Endpoint(name);
+            endpoint = endpoints.putIfAbsent(name, created);
+            if (endpoint == null) {
+                endpoint = created;
+                if (jmxName != null) register(created);
+            }
+        }
+        return endpoint;
+    }
+
+    public Map<String, Endpoint> getEndpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    /**
+     * 응용 수준 재시도 (재로그인, 일괄 등록 등)
+     */
+    public void retry(String uri) {
+        endpoint(endpointOf(uri)).retries.increment();
+    }
+
+    void monitor(PoolingHttpClientConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    public PoolStats getPoolStats() {
+        PoolingHttpClientConnectionManager manager = connectionManager;
+        return manager != null ? manager.getTotalStats() : new PoolStats(0, 0, 0, 0);
+    }
+
+    HttpRequestInterceptor requestInterceptor() {
+        return (request, context) -> {
+            context.setAttribute(ENDPOINT, endpoint(endpointOf(request.getRequestLine().getUri())));
+            context.setAttribute(START, System.nanoTime());
+        };
+    }
+
+    /**
+     * 압축 해제 전에 실행되도록 interceptor 목록 앞에 추가해야 합니다. (응답 byte 는 전송된 크기로 기록)
+     */
+    HttpResponseInterceptor responseInterceptor() {
+        return (response, context) -> {
+            Endpoint endpoint = (Endpoint) context.getAttribute(ENDPOINT);
+            Long start = (Long) context.getAttribute(START);
+            if (endpoint == null || start == null) return;
+            long now = System.nanoTime();
+            endpoint.latency.record(now - start);
+            endpoint.requests.increment();
+            if (response.getStatusLine().getStatusCode() >= 400) {
+                endpoint.errors.increment();
+            }
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                response.setEntity(new MeteredEntity(entity, endpoint, now));
+            }
+        };
+    }
+
+    /**
+     * HttpClient 의 I/O 오류 재시도 횟수 기록
+     */
+    HttpRequestRetryHandler retryHandler(HttpRequestRetryHandler delegate) {
+        return (exception, executionCount, context) -> {
+            boolean retry = delegate.retryRequest(exception, executionCount, context);
+            Endpoint endpoint = (Endpoint) context.getAttribute(ENDPOINT);
+            if (endpoint != null) {
+                endpoint.errors.increment();
+                if (retry) endpoint.retries.increment();
+            }
+            return retry;
+        };
+    }
+
+    HttpRequestRetryHandler retryHandler() {
+        return retryHandler(DefaultHttpRequestRetryHandler.INSTANCE);
+    }
+
+    /**
+     * platform MBeanServer 에 등록 (com.codemind:type=ClientMetrics,name=...,endpoint=...)
+     */
+    public synchronized void registerMBeans(String name) throws JMException {
+        jmxName = name;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new StandardMBean(new Pool(), PoolMBean.class),
+                new ObjectName("com.codemind:type=ClientMetrics,name=" + ObjectName.quote(name) + ",pool=default"));
+        for (Endpoint endpoint : endpoints.values()) {
+            register(endpoint);
+        }
+    }
+
+    private void register(Endpoint endpoint) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(endpoint, EndpointMBean.class),
+                    new ObjectName("com.codemind:type=ClientMetrics,name=" + ObjectName.quote(jmxName)
+                            + ",endpoint=" + ObjectName.quote(endpoint.name)));
+        } catch (JMException e) {
+            System.out.println("metrics: " + e.getMessage());
+        }
+    }
+
+    public synchronized void startReporter(Reporter target, long period, TimeUnit unit) {
+        if (reporter == null) {
+            reporter = Executors.newSingleThreadScheduledExecutor(AnalysisOrchestrator.daemonThreads("codemind-metrics"));
+        }
+        reporter.scheduleAtFixedRate(() -> target.report(this), period, period, unit);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        if (jmxName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                for (ObjectName name : server.queryNames(new ObjectName("com.codemind:type=ClientMetrics,name="
+                        + ObjectName.quote(jmxName) + ",*"), null)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                System.out.println("metrics: " + e.getMessage());
+            }
+            jmxName = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        PoolStats pool = getPoolStats();
+        builder.append(String.format("pool leased: %d, available: %d, pending: %d, max: %d%n",
+                pool.getLeased(), pool.getAvailable(), pool.getPending(), pool.getMax()));
+        builder.append(String.format("%-52s %8s %6s %6s %12s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "retry", "bytes", "mean(ms)", "p50(ms)", "p99(ms)", "xfer99", "proc99"));
+        for (Endpoint endpoint : getEndpoints().values()) {
+            builder.append(String.format("%-52s %8d %6d %6d %12d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint.name, endpoint.getRequests(), endpoint.getErrors(), endpoint.getRetries(), endpoint.getBytes(),
+                    endpoint.getLatencyMean() / 1000, endpoint.getLatencyP50() / 1000.0, endpoint.getLatencyP99() / 1000.0,
+                    endpoint.getTransferP99() / 1000.0, endpoint.getProcessingP99() / 1000.0));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * endpoint 1개의 통계 (시간 단위: us)
+     */
+    public static class Endpoint implements EndpointMBean {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram transfer = new LatencyHistogram();
+        private final LatencyHistogram processing = new LatencyHistogram();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        Endpoint(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public LatencyHistogram getTransfer() {
+            return transfer;
+        }
+
+        public LatencyHistogram getProcessing() {
+            return processing;
+        }
+
+        @Override
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Override
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        @Override
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        @Override
+        public double getLatencyMean() {
+            return latency.getMean();
+        }
+
+        @Override
+        public long getLatencyP50() {
+            return latency.getPercentile(50);
+        }
+
+        @Override
+        public long getLatencyP99() {
+            return latency.getPercentile(99);
+        }
+
+        @Override
+        public long getLatencyMax() {
+            return latency.getMax();
+        }
+
+        @Override
+        public long getTransferP99() {
+            return transfer.getPercentile(99);
+        }
+
+        @Override
+        public long getProcessingP99() {
+            return processing.getPercentile(99);
+        }
+    }
+
+    private class Pool implements PoolMBean {
+        @Override
+        public int getLeased() {
+            return getPoolStats().getLeased();
+        }
+
+        @Override
+        public int getAvailable() {
+            return getPoolStats().getAvailable();
+        }
+
+        @Override
+        public int getPending() {
+            return getPoolStats().getPending();
+        }
+
+        @Override
+        public int getMax() {
+            return getPoolStats().getMax();
+        }
+    }
+
+    /**
+     * 응답 body 를 읽는 시간 / byte 기록
+     */
+    private static class MeteredEntity extends HttpEntityWrapper {
+        private final Endpoint endpoint;
+        private final long responded;
+        private InputStream content;
+
+        MeteredEntity(HttpEntity entity, Endpoint endpoint, long responded) {
+            super(entity);
+            this.endpoint = endpoint;
+            this.responded = responded;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (content == null || !wrappedEntity.isStreaming()) {
+                content = new MeteredInputStream(wrappedEntity.getContent(), endpoint, responded, wrappedEntity.getContentLength());
+            }
+            return content;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            try (InputStream in = getContent()) {
+                byte[] buffer = new byte[8192];
+                int length;
+                while ((length = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, length);
+                }
+            }
+        }
+    }
+
+    private static class MeteredInputStream extends FilterInputStream {
+        private final Endpoint endpoint;
+        private final long responded;
+        private final long contentLength;
+        private long readNanos;
+        private long bytes;
+        private boolean recorded;
+
+        MeteredInputStream(InputStream in, Endpoint endpoint, long responded, long contentLength) {
+            super(in);
+            this.endpoint = endpoint;
+            this.responded = responded;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            readNanos += System.nanoTime() - start;
+            if (b >= 0) bytes++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            int length = super.read(b, off, len);
+            readNanos += System.nanoTime() - start;
+            if (length > 0) bytes += length;
+            return length;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long start = System.nanoTime();
+            long skipped = super.skip(n);
+            readNanos += System.nanoTime() - start;
+            bytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!recorded) {
+                    recorded = true;
+                    // 다 읽지 않고 닫은 경우 (EntityUtils.consume 등) 나머지는 close 에서 읽으므로 Content-Length 로 기록
+                    endpoint.bytes.add(Math.max(bytes, contentLength));
+                    endpoint.transfer.record(readNanos);
+                    endpoint.processing.record(Math.max(0, System.nanoTime() - responded - readNanos));
+                }
+            }
+        }
+    }
+}
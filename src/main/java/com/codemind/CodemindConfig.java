@@ -0,0 +1,98 @@
+package com.codemind;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * 서버 / 인증 정보 / 튜닝 설정 (properties 파일)
+ *      - 파일 경로는 -Dcodemind.config 로 지정하며, 지정하지 않으면 현재 경로의 codemind.properties 를 읽습니다.
+ *        파일이 없으면 모두 기본값을 사용합니다.
+ *      - -Dcodemind.{key} system property 가 있으면 파일 값보다 우선합니다. (ex. CI 에서 -Dcodemind.password=...)
+ *      - 사용하는 key 와 기본값은 RestSample 참고
+ *
+ *  ex) codemind.properties
+ *      url=http://10.0.1.123:8083
+ *      username=openapi
+ *      password=codemind@2
+ *      max.in.flight=10
+ *      daemon.port=9700
+ */
+public class CodemindConfig {
+    static final String CONFIG_PROPERTY = "codemind.config";
+    static final String DEFAULT_FILE = "codemind.properties";
+    static final String PREFIX = "codemind.";
+
+    private final Properties properties;
+
+    public CodemindConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * -Dcodemind.config 또는 codemind.properties (없으면 기본값)
+     */
+    public static CodemindConfig load() {
+        String file = System.getProperty(CONFIG_PROPERTY);
+        Path path = Paths.get(file != null ? file : DEFAULT_FILE);
+        if (file == null && !Files.exists(path)) {
+            return new CodemindConfig(new Properties());
+        }
+        try {
+            return load(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("config: " + path, e);
+        }
+    }
+
+    public static CodemindConfig load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return new CodemindConfig(properties);
+    }
+
+    public String get(String key, String defaultValue) {
+        String value = System.getProperty(PREFIX + key);
+        if (value == null) value = properties.getProperty(key);
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("config %s: invalid number '%s'", key, value));
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        try {
+            return value != null ? Long.parseLong(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("config %s: invalid number '%s'", key, value));
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = get(key, null);
+        try {
+            return value != null ? Double.parseDouble(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("config %s: invalid number '%s'", key, value));
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
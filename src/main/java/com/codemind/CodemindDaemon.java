@@ -0,0 +1,426 @@
+package com.codemind;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상주 실행 (RestSample --daemon)
+ *      - 로그인 session 과 connection pool 을 유지한 채로 작업 요청을 받아서 처리합니다. (JVM 시작 / 로그인 비용 없음)
+ *      - 작업 요청은 localhost socket 또는 spool 디렉토리로 받습니다.
+ *      - 분석 요청은 AnalysisOrchestrator 로 실행하므로 동시 분석 수 제한, journal 기록 / 재시작 후 재개가 그대로 적용됩니다.
+ *        같은 프로젝트의 분석이 진행중이면 새로 요청하지 않고 진행중인 결과를 함께 기다립니다.
+ *
+ *  명령 (한 줄에 하나, 결과는 한 줄의 JSON - {"status": "ok" | "error", ...})
+ *      analyze {project}               분석 요청 후 완료되면 결과 요약
+ *      fetch {project} {sequence}      분석 결과 요약 조회 (ResultCache)
+ *      archive {project} {sequence}    분석 결과 원본 보관 (ResultArchiver)
+ *      status {project}                분석 진행상태
+ *      shutdown {token}                종료 (socket 만, token 은 daemon.token - 설정하지 않으면 사용할 수 없음)
+ *      - {project} 는 RestSample.PROJECT_NAME_FORMAT ([A-Za-z0-9._-]) 만 허용합니다. (URL path 에 그대로 들어가므로 다른 API 호출 방지)
+ *
+ *  인증: shutdown 외의 명령은 인증하지 않습니다. (서버에는 daemon 의 로그인 session 으로 요청)
+ *      - socket 은 localhost 에만 bind 하지만 같은 host 의 모든 사용자가 명령을 보낼 수 있으므로, 여러 사용자가 쓰는 host 에서는
+ *        daemon.port 를 0 으로 두고 권한을 제한한 spool 디렉토리 (daemon.spool.dir) 만 사용해야 합니다.
+ *
+ *  socket: 명령을 보내면 완료된 후 결과를 한 줄로 돌려줍니다. 한 connection 에서 여러 명령을 순서대로 보낼 수 있습니다.
+ *      ex) echo "analyze project_1" | nc localhost 9700
+ *  spool: {name}.job 파일의 명령을 모두 실행한 후 결과를 {name}.result 에 명령 순서대로 쓰고 {name}.job 은 삭제합니다.
+ *      - 쓰는 도중에 읽지 않도록 다른 이름으로 쓴 후 {name}.job 으로 rename 해야 합니다.
+ *      - 빈 줄과 # 으로 시작하는 줄은 무시합니다.
+ *      - 재시작 시 남아 있는 {name}.job 도 처리합니다.
+ */
+public class CodemindDaemon implements Closeable {
+    static final String JOB_SUFFIX = ".job";
+    static final String RESULT_SUFFIX = ".result";
+
+    private final AnalysisOrchestrator orchestrator;
+    private final ExecutorService workers;
+    private final ExecutorService connections = Executors.newCachedThreadPool(AnalysisOrchestrator.daemonThreads("codemind-client"));
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(AnalysisOrchestrator.daemonThreads("codemind-keepalive"));
+    private final Map<String, CompletableFuture<JSONObject>> analyses = new ConcurrentHashMap<>();
+    private final Set<Path> claimed = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final byte[] shutdownToken;
+    private ServerSocket serverSocket;
+    private WatchService watchService;
+
+    /**
+     * @param orchestrator 분석 요청 (close 는 호출한 쪽에서)
+     * @param workerThreads 결과 조회 / 보관 / spool 처리 thread 수
+     */
+    public CodemindDaemon(AnalysisOrchestrator orchestrator, int workerThreads) {
+        this(orchestrator, workerThreads, null);
+    }
+
+    /**
+     * @param shutdownToken socket 의 shutdown 명령에 필요한 token (null 또는 빈 값이면 shutdown 명령을 받지 않음)
+     */
+    public CodemindDaemon(AnalysisOrchestrator orchestrator, int workerThreads, String shutdownToken) {
+        this.orchestrator = orchestrator;
+        this.workers = Executors.newFixedThreadPool(workerThreads, AnalysisOrchestrator.daemonThreads("codemind-job"));
+        this.shutdownToken = shutdownToken == null || shutdownToken.isEmpty() ? null : shutdownToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 이전 실행에서 끝나지 않은 분석 재개 (journal) - 같은 프로젝트의 analyze 요청은 재개한 결과를 기다립니다.
+     */
+    public void resume() {
+        orchestrator.resume(CodemindDaemon::summary).forEach((projectName, result) -> {
+            analyses.put(projectName, result);
+            result.whenComplete((summary, ex) -> analyses.remove(projectName, result));
+        });
+    }
+
+    /**
+     * 주기적으로 session 유지 요청 (SessionManager.keepAlive)
+     */
+    public void keepAlive(SessionManager session, long interval, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                session.keepAlive();
+            } catch (IOException e) {
+                System.out.println("daemon: keepalive " + e.getMessage());
+            }
+        }, interval, interval, unit);
+    }
+
+    /**
+     * localhost 의 port 로 명령 수신
+     * @param port 0 이면 임의의 port
+     * @return 사용하는 port
+     */
+    public synchronized int listen(int port) throws IOException {
+        ServerSocket server = new ServerSocket();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverSocket = server;
+        AnalysisOrchestrator.daemonThreads("codemind-listener").newThread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    if (!server.isClosed()) System.out.println("daemon: " + e.getMessage());
+                }
+            }
+        }).start();
+        System.out.println("daemon: listening on " + server.getLocalSocketAddress());
+        return server.getLocalPort();
+    }
+
+    /**
+     * spool 디렉토리의 {name}.job 파일 처리 (이미 있는 파일 포함)
+     */
+    public synchronized void watch(Path spool) throws IOException {
+        Files.createDirectories(spool);
+        WatchService service = spool.getFileSystem().newWatchService();
+        spool.register(service, StandardWatchEventKinds.ENTRY_CREATE);       // rename 으로 들어온 파일 포함
+        watchService = service;
+        rescan(spool);
+        AnalysisOrchestrator.daemonThreads("codemind-spool").newThread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            rescan(spool);
+                        } else {
+                            submit(spool.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) break;
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // close
+            } catch (IOException e) {
+                System.out.println("daemon: spool " + e.getMessage());
+            }
+        }).start();
+        System.out.println("daemon: watching " + spool.toAbsolutePath());
+    }
+
+    private void rescan(Path spool) throws IOException {
+        try (DirectoryStream<Path> jobs = Files.newDirectoryStream(spool, "*" + JOB_SUFFIX)) {
+            for (Path job : jobs) submit(job);
+        }
+    }
+
+    /**
+     * 같은 파일이 목록 조회와 event 로 두 번 들어와도 한 번만 처리합니다. (결과를 쓰고 삭제할 때까지)
+     */
+    private void submit(Path job) {
+        if (!job.getFileName().toString().endsWith(JOB_SUFFIX) || !claimed.add(job)) return;
+        workers.execute(() -> {
+            try {
+                process(job);
+            } catch (NoSuchFileException e) {
+                claimed.remove(job);        // 이미 처리됨
+            } catch (IOException e) {
+                claimed.remove(job);
+                System.out.println("daemon: " + job + " " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * {name}.job 의 명령을 모두 실행한 후 {name}.result 에 결과를 씁니다.
+     *      - 분석 완료를 기다리는 동안 worker thread 를 차지하지 않도록 결과는 완료된 thread 에서 씁니다.
+     */
+    private void process(Path job) throws IOException {
+        List<CompletableFuture<JSONObject>> results = new ArrayList<>();
+        for (String line : Files.readAllLines(job, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            results.add(isShutdown(line) ? CompletableFuture.completedFuture(error(line, "not allowed in spool")) : execute(line));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, ex) -> {
+            String name = job.getFileName().toString();
+            Path target = job.resolveSibling(name.substring(0, name.length() - JOB_SUFFIX.length()) + RESULT_SUFFIX);
+            try {
+                Path temp = Files.createTempFile(job.getParent(), name, ".tmp");
+                try {
+                    try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                        for (CompletableFuture<JSONObject> result : results) {
+                            writer.write(result.join().toString());
+                            writer.write('\n');
+                        }
+                    }
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                Files.deleteIfExists(job);
+            } catch (IOException e) {
+                System.out.println("daemon: " + target + " " + e.getMessage());
+            } finally {
+                claimed.remove(job);
+            }
+        });
+    }
+
+    /**
+     * connection 하나 - 명령을 한 줄씩 읽어서 완료된 후 결과를 한 줄씩 돌려줍니다.
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (isShutdown(line)) {
+                    String message = checkShutdown(line);
+                    writer.write((message == null ? new JSONObject().put("status", "ok").put("command", "shutdown")
+                            : error("shutdown", message)).toString());
+                    writer.write('\n');
+                    writer.flush();
+                    if (message == null) {
+                        shutdown();
+                        return;
+                    }
+                    continue;
+                }
+                writer.write(execute(line).join().toString());
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (IOException e) {
+            System.out.println("daemon: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 명령 실행
+     * @return 결과 (실패한 경우에도 {"status": "error"} 로 완료됩니다.)
+     */
+    public CompletableFuture<JSONObject> execute(String line) {
+        String[] args = line.trim().split("\\s+");
+        CompletableFuture<JSONObject> result;
+        try {
+            switch (args[0]) {
+                case "analyze":
+                    result = analyze(project(args, 1));
+                    break;
+                case "fetch": {
+                    String projectName = project(args, 1);
+                    int sequence = Integer.parseInt(argument(args, 2));
+                    result = CompletableFuture.supplyAsync(() -> call(() -> summary(projectName, sequence)), workers);
+                    break;
+                }
+                case "archive": {
+                    String projectName = project(args, 1);
+                    int sequence = Integer.parseInt(argument(args, 2));
+                    result = CompletableFuture.supplyAsync(() -> call(() -> archive(projectName, sequence)), workers);
+                    break;
+                }
+                case "status": {
+                    String projectName = project(args, 1);
+                    result = CompletableFuture.supplyAsync(() -> call(() -> RestSample.getStatus(projectName)), workers);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("unknown command: " + args[0]);
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(error(line, e.getMessage()));
+        }
+        return result.handle((json, ex) -> ex != null
+                ? error(line, (ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex).getMessage())
+                : new JSONObject().put("status", "ok").put("command", line).put("result", json));
+    }
+
+    /**
+     * 진행중인 분석이 있으면 그 결과를 함께 기다립니다.
+     */
+    private CompletableFuture<JSONObject> analyze(String projectName) {
+        CompletableFuture<JSONObject> created = new CompletableFuture<>();
+        CompletableFuture<JSONObject> existing = analyses.putIfAbsent(projectName, created);
+        if (existing != null) return existing;
+        orchestrator.submit(projectName, CodemindDaemon::summary).whenComplete((summary, ex) -> {
+            analyses.remove(projectName, created);
+            if (ex != null) created.completeExceptionally(ex);
+            else created.complete(summary);
+        });
+        return created;
+    }
+
+    private static JSONObject summary(String projectName, int sequence) throws IOException {
+        AnalysisSummary summary = RestSample.loadAnalysisResult(projectName, sequence);
+        return new JSONObject()
+                .put("project", projectName)
+                .put("sequence", sequence)
+                .put("totalLines", summary.getTotalLines())
+                .put("files", summary.getFiles())
+                .put("warns", summary.getWarns())
+                .put("canons", summary.getCanons())
+                .put("startTime", summary.getStartTime())
+                .put("endTime", summary.getEndTime());
+    }
+
+    private static JSONObject archive(String projectName, int sequence) throws IOException {
+        ResultArchiver.Archive archive = RestSample.archiveResult(projectName, sequence);
+        return new JSONObject()
+                .put("project", projectName)
+                .put("sequence", sequence)
+                .put("path", archive.getPath().toAbsolutePath().toString())
+                .put("sha256", archive.getSha256())
+                .put("contentLength", archive.getContentLength());
+    }
+
+    private interface Call {
+        JSONObject call() throws Exception;
+    }
+
+    private static JSONObject call(Call call) {
+        try {
+            return call.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static String argument(String[] args, int index) {
+        if (index >= args.length) throw new IllegalArgumentException("usage: " + usage(args[0]));
+        return args[index];
+    }
+
+    /**
+     * 실행 전에 프로젝트 이름 확인 (RestSample.checkProjectName)
+     */
+    private static String project(String[] args, int index) {
+        return RestSample.checkProjectName(argument(args, index));
+    }
+
+    private static String usage(String command) {
+        switch (command) {
+            case "analyze":
+            case "status":
+                return command + " {project}";
+            default:
+                return command + " {project} {sequence}";
+        }
+    }
+
+    private static boolean isShutdown(String line) {
+        return line.equals("shutdown") || line.startsWith("shutdown ");
+    }
+
+    /**
+     * @return 거부 사유 (token 이 맞으면 null)
+     */
+    private String checkShutdown(String line) {
+        if (shutdownToken == null) {
+            return "shutdown disabled (daemon.token)";
+        }
+        String token = line.substring("shutdown".length()).trim();
+        return MessageDigest.isEqual(shutdownToken, token.getBytes(StandardCharsets.UTF_8)) ? null : "invalid token";
+    }
+
+    private static JSONObject error(String line, String message) {
+        return new JSONObject().put("status", "error").put("command", line).put("message", String.valueOf(message));
+    }
+
+    /**
+     * shutdown 명령 / shutdown() 또는 close 까지 대기
+     */
+    public void await() throws InterruptedException {
+        closed.await();
+    }
+
+    /**
+     * await() 가 반환되도록 알립니다. (종료 처리는 await() 를 호출한 thread 에서 close 로)
+     */
+    public void shutdown() {
+        closed.countDown();
+    }
+
+    /**
+     * 새 요청을 더 받지 않고 종료 (진행중인 분석은 AnalysisOrchestrator.close 에서 기다립니다.)
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed.countDown();
+        scheduler.shutdownNow();
+        if (serverSocket != null) serverSocket.close();
+        if (watchService != null) watchService.close();
+        connections.shutdown();
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,184 @@
+package com.codemind;
+
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 분석 결과 columnar binary export
+ *      - 파일 경로, canon id 는 dictionary (id) 로 저장하고, warns 는 column 별 int 배열로 저장합니다.
+ *      - 저장된 파일은 ColumnarResultReader 로 JSON 파싱 없이 조회할 수 있습니다.
+ *
+ *  format (big endian)
+ *      int magic, int version
+ *      string project, int sequence, long startTime, long endTime, long totalLines
+ *      int fileCount,  string[fileCount] path, int[fileCount] line
+ *      int canonCount, string[canonCount] id, string[canonCount] cwe, string[canonCount] name, int[canonCount] risky
+ *      int warnCount,  int[warnCount] id, file, canon, sLine, sColumn, eLine, eColumn   (sink 위치)
+ *      string = int length + UTF-8 bytes
+ */
+public class ColumnarExporter implements AnalysisResultParser.Handler {
+    static final int MAGIC = 0x434d4352;        // CMCR
+    static final int VERSION = 1;
+
+    private final int sequence;
+    private String project = "";
+    private long startTime;
+    private long endTime;
+    private long totalLines;
+
+    private final StringTable files = new StringTable();
+    private final IntArrayList fileLines = new IntArrayList();
+    private final StringTable canons = new StringTable();
+    private final List<String> canonCwe = new ArrayList<>();
+    private final List<String> canonNames = new ArrayList<>();
+    private final IntArrayList canonRisky = new IntArrayList();
+
+    private final IntArrayList warnIds = new IntArrayList(1024);
+    private final IntArrayList warnFiles = new IntArrayList(1024);
+    private final IntArrayList warnCanons = new IntArrayList(1024);
+    private final IntArrayList sLines = new IntArrayList(1024);
+    private final IntArrayList sColumns = new IntArrayList(1024);
+    private final IntArrayList eLines = new IntArrayList(1024);
+    private final IntArrayList eColumns = new IntArrayList(1024);
+
+    public ColumnarExporter(int sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * analysis-result 응답 body 를 읽어서 target 에 저장
+     */
+    public static void export(InputStream in, int sequence, Path target) throws IOException {
+        ColumnarExporter exporter = new ColumnarExporter(sequence);
+        try (AnalysisResultParser parser = new AnalysisResultParser(in)) {
+            parser.parse(exporter);
+        }
+        exporter.write(target);
+    }
+
+    @Override
+    public void property(String key, Object value) {
+        switch (key) {
+            case "project":
+                project = String.valueOf(value);
+                break;
+            case "startTime":
+                startTime = value instanceof Number ? ((Number) value).longValue() : 0;
+                break;
+            case "endTime":
+                endTime = value instanceof Number ? ((Number) value).longValue() : 0;
+                break;
+            case "totalLines":
+                totalLines = value instanceof Number ? ((Number) value).longValue() : 0;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void file(String path, JSONObject file) {
+        fileLines.set(file(path), file.optInt("line"));
+    }
+
+    @Override
+    public void canon(JSONObject canon) {
+        int id = canon(canon.optString("id"));
+        canonCwe.set(id, canon.optString("cwe"));
+        canonNames.set(id, canon.optString("name"));
+        canonRisky.set(id, canon.optInt("risky"));
+    }
+
+    @Override
+    public void warn(JSONObject warn) {
+        JSONObject sink = warn.optJSONObject("sink");
+        warnIds.add(warn.optInt("id"));
+        warnFiles.add(file(warn.optString("file")));
+        warnCanons.add(canon(warn.optString("canon")));
+        sLines.add(sink != null ? sink.optInt("sLine") : 0);
+        sColumns.add(sink != null ? sink.optInt("sColumn") : 0);
+        eLines.add(sink != null ? sink.optInt("eLine") : 0);
+        eColumns.add(sink != null ? sink.optInt("eColumn") : 0);
+    }
+
+    /**
+     * files / canons 보다 warns 가 먼저 올 수 있으므로 처음 나온 곳에서 id 를 등록합니다.
+     */
+    private int file(String path) {
+        int id = files.intern(path);
+        if (id == fileLines.size()) fileLines.add(0);
+        return id;
+    }
+
+    private int canon(String canonId) {
+        int id = canons.intern(canonId);
+        if (id == canonRisky.size()) {
+            canonCwe.add("");
+            canonNames.add("");
+            canonRisky.add(0);
+        }
+        return id;
+    }
+
+    /**
+     * 임시 파일에 쓴 후 target 으로 이동
+     */
+    public void write(Path target) throws IOException {
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 65536))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, project);
+                out.writeInt(sequence);
+                out.writeLong(startTime);
+                out.writeLong(endTime);
+                out.writeLong(totalLines);
+
+                out.writeInt(files.size());
+                for (int i = 0; i < files.size(); i++) writeString(out, files.get(i));
+                writeColumn(out, fileLines);
+
+                out.writeInt(canons.size());
+                for (int i = 0; i < canons.size(); i++) writeString(out, canons.get(i));
+                for (String cwe : canonCwe) writeString(out, cwe);
+                for (String name : canonNames) writeString(out, name);
+                writeColumn(out, canonRisky);
+
+                out.writeInt(warnIds.size());
+                writeColumn(out, warnIds);
+                writeColumn(out, warnFiles);
+                writeColumn(out, warnCanons);
+                writeColumn(out, sLines);
+                writeColumn(out, sColumns);
+                writeColumn(out, eLines);
+                writeColumn(out, eColumns);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeColumn(DataOutputStream out, IntArrayList column) throws IOException {
+        for (int i = 0; i < column.size(); i++) {
+            out.writeInt(column.get(i));
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.codemind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * ColumnarExporter 로 저장한 분석 결과 조회
+ *      - 파일을 memory-mapped 로 열고 warns column 은 IntBuffer 로 직접 읽습니다.
+ *      - 파일 경로, canon 정보 (dictionary) 만 heap 에 올립니다.
+ *
+ *  ex) risky 4 이상인 X 파일의 취약점
+ *      int file = reader.findFile(X);
+ *      IntArrayList rows = reader.rowsWhere(row -> reader.getFile(row) == file && reader.getRisky(reader.getCanon(row)) >= 4);
+ */
+public class ColumnarResultReader implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    private final String project;
+    private final int sequence;
+    private final long startTime;
+    private final long endTime;
+    private final long totalLines;
+
+    private final String[] filePaths;
+    private final IntBuffer fileLines;
+    private final Map<String, Integer> fileIds = new HashMap<>();
+    private final String[] canonIds;
+    private final String[] canonCwe;
+    private final String[] canonNames;
+    private final IntBuffer canonRisky;
+
+    private final int warnCount;
+    private final IntBuffer warnIds;
+    private final IntBuffer warnFiles;
+    private final IntBuffer warnCanons;
+    private final IntBuffer sLines;
+    private final IntBuffer sColumns;
+    private final IntBuffer eLines;
+    private final IntBuffer eColumns;
+
+    public ColumnarResultReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.getInt() != ColumnarExporter.MAGIC) {
+            channel.close();
+            throw new IOException("not a columnar analysis result: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != ColumnarExporter.VERSION) {
+            channel.close();
+            throw new IOException("unsupported version " + version + ": " + path);
+        }
+        project = readString();
+        sequence = buffer.getInt();
+        startTime = buffer.getLong();
+        endTime = buffer.getLong();
+        totalLines = buffer.getLong();
+
+        int fileCount = buffer.getInt();
+        filePaths = new String[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            filePaths[i] = readString();
+            fileIds.put(filePaths[i], i);
+        }
+        fileLines = column(fileCount);
+
+        int canonCount = buffer.getInt();
+        canonIds = readStrings(canonCount);
+        canonCwe = readStrings(canonCount);
+        canonNames = readStrings(canonCount);
+        canonRisky = column(canonCount);
+
+        warnCount = buffer.getInt();
+        warnIds = column(warnCount);
+        warnFiles = column(warnCount);
+        warnCanons = column(warnCount);
+        sLines = column(warnCount);
+        sColumns = column(warnCount);
+        eLines = column(warnCount);
+        eColumns = column(warnCount);
+    }
+
+    private String readString() {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String[] readStrings(int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) values[i] = readString();
+        return values;
+    }
+
+    /**
+     * 현재 위치부터 count 개의 int column (복사하지 않음)
+     */
+    private IntBuffer column(int count) {
+        ByteBuffer slice = buffer.slice();
+        ((Buffer) slice).limit(count * 4);          // java 8 호환 (Buffer 의 method 로 호출)
+        ((Buffer) buffer).position(buffer.position() + count * 4);
+        return slice.asIntBuffer();
+    }
+
+    /**
+     * 조건에 맞는 warn row 번호
+     */
+    public IntArrayList rowsWhere(IntPredicate predicate) {
+        IntArrayList rows = new IntArrayList();
+        for (int row = 0; row < warnCount; row++) {
+            if (predicate.test(row)) rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * canon 별 취약점 수 (index: canon id)
+     */
+    public int[] countByCanon() {
+        int[] counts = new int[canonIds.length];
+        for (int row = 0; row < warnCount; row++) {
+            counts[warnCanons.get(row)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * 디렉토리 -> canon -> 취약점 수
+     */
+    public Map<String, Map<String, Integer>> countByDirectoryAndCanon() {
+        int[] directories = new int[filePaths.length];
+        StringTable directoryTable = new StringTable();
+        for (int i = 0; i < filePaths.length; i++) {
+            directories[i] = directoryTable.intern(directoryOf(filePaths[i]));
+        }
+        int canonCount = canonIds.length;
+        int[] counts = new int[directoryTable.size() * canonCount];
+        for (int row = 0; row < warnCount; row++) {
+            counts[directories[warnFiles.get(row)] * canonCount + warnCanons.get(row)]++;
+        }
+        Map<String, Map<String, Integer>> result = new HashMap<>();
+        for (int d = 0; d < directoryTable.size(); d++) {
+            for (int c = 0; c < canonCount; c++) {
+                int count = counts[d * canonCount + c];
+                if (count > 0) {
+                    result.computeIfAbsent(directoryTable.get(d), k -> new HashMap<>()).put(canonIds[c], count);
+                }
+            }
+        }
+        return result;
+    }
+
+    static String directoryOf(String path) {
+        int index = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return index > 0 ? path.substring(0, index) : "";
+    }
+
+    /**
+     * @return 없으면 -1
+     */
+    public int findFile(String path) {
+        Integer id = fileIds.get(path);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return 없으면 -1
+     */
+    public int findCanon(String canonId) {
+        for (int i = 0; i < canonIds.length; i++) {
+            if (canonIds[i].equals(canonId)) return i;
+        }
+        return -1;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getTotalLines() {
+        return totalLines;
+    }
+
+    public int getFileCount() {
+        return filePaths.length;
+    }
+
+    public String getFilePath(int file) {
+        return filePaths[file];
+    }
+
+    public int getFileLine(int file) {
+        return fileLines.get(file);
+    }
+
+    public int getCanonCount() {
+        return canonIds.length;
+    }
+
+    public String getCanonId(int canon) {
+        return canonIds[canon];
+    }
+
+    public String getCwe(int canon) {
+        return canonCwe[canon];
+    }
+
+    public String getCanonName(int canon) {
+        return canonNames[canon];
+    }
+
+    public int getRisky(int canon) {
+        return canonRisky.get(canon);
+    }
+
+    public int getWarnCount() {
+        return warnCount;
+    }
+
+    public int getWarnId(int row) {
+        return warnIds.get(row);
+    }
+
+    public int getFile(int row) {
+        return warnFiles.get(row);
+    }
+
+    public int getCanon(int row) {
+        return warnCanons.get(row);
+    }
+
+    public int getSLine(int row) {
+        return sLines.get(row);
+    }
+
+    public int getSColumn(int row) {
+        return sColumns.get(row);
+    }
+
+    public int getELine(int row) {
+        return eLines.get(row);
+    }
+
+    public int getEColumn(int row) {
+        return eColumns.get(row);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
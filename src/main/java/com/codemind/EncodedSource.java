@@ -0,0 +1,120 @@
+package com.codemind;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * files[*].code 원본 (@{b}, @{n} 으로 escape 된 소스)
+ *      - escape 된 상태의 UTF-8 byte 로 보관하고, 요청한 줄만 decode 합니다.
+ *      - 줄 시작 위치 index 는 처음 조회할 때 한 번 만듭니다.
+ *
+ *  escape: @{b} -> ' ', @{n} -> 줄바꿈, @{@} -> '@' (그 외 @{...} 는 그대로 둡니다.)
+ */
+public class EncodedSource {
+    private static final byte[] NEWLINE = "@{n}".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] raw;
+    private int[] lineStarts;       // lazy
+
+    public EncodedSource(byte[] raw) {
+        this.raw = raw;
+    }
+
+    public static EncodedSource of(String code) {
+        return new EncodedSource(code.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * escape 된 원본 크기 (byte)
+     */
+    public int length() {
+        return raw.length;
+    }
+
+    public int getLineCount() {
+        return lineStarts().length;
+    }
+
+    /**
+     * @param line 1 부터 시작
+     */
+    public String getLine(int line) {
+        return getLines(line, line);
+    }
+
+    /**
+     * from ~ to 줄 (1 부터 시작, to 포함)
+     */
+    public String getLines(int from, int to) {
+        int[] starts = lineStarts();
+        from = Math.max(from, 1);
+        to = Math.min(to, starts.length);
+        if (from > to) return "";
+        int start = starts[from - 1];
+        int end = to < starts.length ? starts[to] - NEWLINE.length : raw.length;
+        return decode(start, end);
+    }
+
+    /**
+     * 취약점 위치 (sLine ~ eLine) 앞뒤로 context 줄 포함
+     */
+    public String getContext(int sLine, int eLine, int context) {
+        return getLines(sLine - context, eLine + context);
+    }
+
+    public String decodeAll() {
+        return decode(0, raw.length);
+    }
+
+    private int[] lineStarts() {
+        if (lineStarts == null) {
+            IntArrayList starts = new IntArrayList();
+            starts.add(0);
+            int i = 0;
+            while (i <= raw.length - NEWLINE.length) {
+                if (isNewline(i)) {
+                    i += NEWLINE.length;
+                    starts.add(i);
+                } else {
+                    i++;
+                }
+            }
+            lineStarts = starts.toArray();
+        }
+        return lineStarts;
+    }
+
+    private boolean isNewline(int index) {
+        for (int i = 0; i < NEWLINE.length; i++) {
+            if (raw[index + i] != NEWLINE[i]) return false;
+        }
+        return true;
+    }
+
+    private String decode(int start, int end) {
+        byte[] decoded = new byte[end - start];
+        int length = 0;
+        int i = start;
+        while (i < end) {
+            byte b = raw[i];
+            if (b == '@' && i + 3 < end && raw[i + 1] == '{' && raw[i + 3] == '}') {
+                byte code = raw[i + 2];
+                if (code == 'b') {
+                    decoded[length++] = ' ';
+                    i += 4;
+                    continue;
+                } else if (code == 'n') {
+                    decoded[length++] = '\n';
+                    i += 4;
+                    continue;
+                } else if (code == '@') {
+                    decoded[length++] = '@';
+                    i += 4;
+                    continue;
+                }
+            }
+            decoded[length++] = b;
+            i++;
+        }
+        return new String(decoded, 0, length, StandardCharsets.UTF_8);
+    }
+}
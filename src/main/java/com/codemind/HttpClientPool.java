@@ -0,0 +1,209 @@
+package com.codemind;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContextBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * keep-alive connection pool 을 사용하는 HttpClient
+ *      - 최대 connection 수 (전체 / route 별), connect / socket / connection request timeout 설정
+ *      - background thread 에서 만료되거나 일정 시간 사용되지 않은 connection 을 정리합니다.
+ *      - metrics 를 설정하면 endpoint 별 요청 통계를 기록합니다. (ClientMetrics)
+ *      - 기본으로 Accept-Encoding: gzip,deflate 를 보내고, 압축된 응답은 entity 를 읽는 동안 stream 으로 풀어서 전달합니다.
+ *        (분석 결과처럼 반복이 많은 JSON 은 전송량이 크게 줄어듭니다. ClientMetrics 의 byte 는 압축된 크기입니다.)
+ *
+ *  ex) HttpClientPool pool = HttpClientPool.custom().maxTotal(100).maxPerRoute(50).build();
+ *      CloseableHttpClient httpclient = pool.getClient();
+ */
+public class HttpClientPool implements Closeable {
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final IdleConnectionEvictor evictor;
+    private final CloseableHttpClient client;
+    private final ClientMetrics metrics;
+
+    private HttpClientPool(Builder builder) throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
+        SSLContextBuilder sslContextBuilder = new SSLContextBuilder();
+        sslContextBuilder.loadTrustMaterial(null, new TrustSelfSignedStrategy());
+        SSLConnectionSocketFactory sslConnectionSocketFactory = new SSLConnectionSocketFactory(sslContextBuilder.build(), NoopHostnameVerifier.INSTANCE);
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslConnectionSocketFactory)
+                .build();
+
+        connectionManager = new PoolingHttpClientConnectionManager(registry, null, null, null,
+                builder.connectionTimeToLive, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(builder.maxTotal);
+        connectionManager.setDefaultMaxPerRoute(builder.maxPerRoute);
+        connectionManager.setValidateAfterInactivity(builder.validateAfterInactivity);
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setSoKeepAlive(true)
+                .setTcpNoDelay(true)
+                .setSoTimeout(builder.socketTimeout)
+                .build());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(builder.connectTimeout)
+                .setSocketTimeout(builder.socketTimeout)
+                .setConnectionRequestTimeout(builder.connectionRequestTimeout)
+                .build();
+
+        HttpClientBuilder clientBuilder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig);
+        if (!builder.contentCompression) {
+            clientBuilder.disableContentCompression();
+        }
+        metrics = builder.metrics;
+        if (metrics != null) {
+            metrics.monitor(connectionManager);
+            clientBuilder.addInterceptorLast(metrics.requestInterceptor())
+                    .addInterceptorFirst(metrics.responseInterceptor())
+                    .setRetryHandler(metrics.retryHandler());
+        }
+        client = clientBuilder.build();
+
+        evictor = new IdleConnectionEvictor(connectionManager, AnalysisOrchestrator.daemonThreads("codemind-evictor"),
+                builder.evictInterval, TimeUnit.MILLISECONDS, builder.maxIdleTime, TimeUnit.MILLISECONDS);
+        evictor.start();
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public CloseableHttpClient getClient() {
+        return client;
+    }
+
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * @return metrics 를 설정하지 않았으면 null
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * leased / available / pending connection 수
+     */
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        evictor.shutdown();
+        client.close();
+    }
+
+    /**
+     * 시간 단위는 모두 ms
+     */
+    public static class Builder {
+        private int maxTotal = 100;
+        private int maxPerRoute = 50;
+        private int connectTimeout = 10000;
+        private int socketTimeout = 60000;
+        private int connectionRequestTimeout = 30000;
+        private int validateAfterInactivity = 2000;
+        private long connectionTimeToLive = -1;          // 제한 없음
+        private long evictInterval = 5000;
+        private long maxIdleTime = 30000;
+        private boolean contentCompression = true;
+        private ClientMetrics metrics;
+
+        private Builder() {
+        }
+
+        public Builder maxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        public Builder maxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+            return this;
+        }
+
+        public Builder connectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder socketTimeout(int socketTimeout) {
+            this.socketTimeout = socketTimeout;
+            return this;
+        }
+
+        public Builder connectionRequestTimeout(int connectionRequestTimeout) {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+            return this;
+        }
+
+        public Builder validateAfterInactivity(int validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        public Builder connectionTimeToLive(long connectionTimeToLive) {
+            this.connectionTimeToLive = connectionTimeToLive;
+            return this;
+        }
+
+        /**
+         * @param evictInterval 정리 thread 실행 간격
+         * @param maxIdleTime 이 시간 이상 사용되지 않은 connection 은 닫습니다.
+         */
+        public Builder evictIdleConnections(long evictInterval, long maxIdleTime) {
+            this.evictInterval = evictInterval;
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        /**
+         * @param contentCompression false 면 Accept-Encoding 을 보내지 않고 응답도 풀지 않습니다. (기본값 true)
+         */
+        public Builder contentCompression(boolean contentCompression) {
+            this.contentCompression = contentCompression;
+            return this;
+        }
+
+        /**
+         * endpoint 별 latency, 응답 byte, 재시도, pool 상태 기록
+         */
+        public Builder metrics(ClientMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public HttpClientPool build() throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
+            if (maxTotal < 1 || maxPerRoute < 1) {
+                throw new IllegalArgumentException("maxTotal and maxPerRoute must be positive");
+            }
+            return new HttpClientPool(this);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.codemind;
+
+import java.util.Arrays;
+
+/**
+ * boxing 없이 int 값을 저장하는 가변 배열
+ */
+public class IntArrayList {
+    private int[] values;
+    private int size;
+
+    public IntArrayList() {
+        this(16);
+    }
+
+    public IntArrayList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        return values[index];
+    }
+
+    public void set(int index, int value) {
+        if (index >= size) throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        values[index] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,363 @@
+package com.codemind;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * 분석 작업 상태 journal (파일)
+ *      - 상태가 바뀔 때마다 한 줄씩 추가만 합니다. 각 줄은 "crc32 JSON" 형식이며 crc 가 맞지 않는 줄은 무시합니다.
+ *      - 기록은 writer thread 에서 모아서 쓰고 한 번만 fsync 합니다. append() 가 반환한 future 는 fsync 후 완료됩니다.
+ *      - 열 때 기존 journal 을 읽어서 끝나지 않은 작업 (SUBMITTED, RUNNING, SUCCESS) 만 남기고 다시 씁니다.
+ *        실행 중에도 끝난 작업 (FETCHED, FAILED) 기록이 COMPACT_THRESHOLD 건을 넘으면 같은 방법으로 다시 씁니다. (상주 실행)
+ *
+ *  ex) try (JobJournal journal = new JobJournal(Paths.get("codemind-journal.log"))) {
+ *          journal.getOutstanding();       // 이전 실행에서 끝나지 않은 작업
+ *          journal.append(projectName, JobJournal.State.SUBMITTED).join();
+ *      }
+ */
+public class JobJournal implements Closeable {
+    static final int MAX_BATCH = 1024;              // 한 번에 쓰는 최대 기록 수
+    static final int COMPACT_THRESHOLD = 10000;     // 끝난 작업 기록이 이 건수를 넘으면 compact
+
+    public enum State {
+        SUBMITTED,      // 분석 요청 전 (요청이 서버에 전달됐는지 알 수 없음, sequence 는 요청 전 서버의 sequence)
+        RUNNING,        // 분석 요청 성공 (sequence 는 요청 전 서버의 sequence)
+        SUCCESS,        // 분석 완료 (sequence)
+        FETCHED,        // 결과 조회 완료
+        FAILED;
+
+        boolean isFinished() {
+            return this == FETCHED || this == FAILED;
+        }
+    }
+
+    /**
+     * 작업 상태 기록 한 건
+     */
+    public static class Entry {
+        private final String projectName;
+        private final State state;
+        private final int sequence;
+        private final long time;
+        private final String message;
+
+        Entry(String projectName, State state, int sequence, long time, String message) {
+            this.projectName = projectName;
+            this.state = state;
+            this.sequence = sequence;
+            this.time = time;
+            this.message = message;
+        }
+
+        static Entry fromJSON(JSONObject json) {
+            return new Entry(json.getString("project"), State.valueOf(json.getString("state")),
+                    json.optInt("sequence"), json.optLong("time"), json.optString("message", null));
+        }
+
+        JSONObject toJSON() {
+            JSONObject json = new JSONObject()
+                    .put("project", projectName)
+                    .put("state", state.name())
+                    .put("time", time);
+            if (sequence > 0) json.put("sequence", sequence);
+            if (message != null) json.put("message", message);
+            return json;
+        }
+
+        public String getProjectName() {
+            return projectName;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return SUBMITTED, RUNNING: 분석 요청 전 서버의 sequence (이보다 큰 sequence 가 이번 분석의 결과)
+         *         SUCCESS, FETCHED: 분석 결과의 sequence
+         *         FAILED: 0
+         */
+        public int getSequence() {
+            return sequence;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return FAILED 가 아니면 null
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%s] %s%s%s", projectName, state,
+                    sequence > 0 ? " " + sequence : "", message != null ? " " + message : "");
+        }
+    }
+
+    private static class Pending {
+        final Entry entry;
+        final byte[] line;
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        Pending(Entry entry) {
+            this.entry = entry;
+            this.line = entry != null ? encode(entry) : new byte[0];
+        }
+    }
+
+    private static final Pending CLOSE = new Pending(null);
+
+    private final Path file;
+    private final List<Entry> outstanding;
+    private final int corrupted;
+    private final Map<String, Entry> live = new LinkedHashMap<>();       // 끝나지 않은 작업 (writer thread)
+    private int finished;                                               // 마지막 compact 이후 끝난 작업 기록 수 (writer thread)
+    private FileChannel channel;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private long syncs;
+    private long compactions;
+
+    public JobJournal(Path file) throws IOException {
+        this.file = file;
+        Map<String, Entry> latest = new LinkedHashMap<>();
+        int invalid = 0;
+        if (Files.exists(file)) {
+            // 잘린 줄에 깨진 문자가 있어도 예외 없이 읽도록 InputStreamReader 사용 (crc 로 걸러짐)
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Entry entry = decode(line);
+                    if (entry == null) {
+                        invalid++;          // 쓰는 중에 종료된 마지막 줄 등
+                        continue;
+                    }
+                    latest.put(entry.projectName, entry);
+                }
+            }
+        }
+        List<Entry> unfinished = new ArrayList<>();
+        for (Entry entry : latest.values()) {
+            if (!entry.state.isFinished()) unfinished.add(entry);
+        }
+        this.outstanding = Collections.unmodifiableList(unfinished);
+        this.corrupted = invalid;
+        for (Entry entry : unfinished) live.put(entry.projectName, entry);
+
+        compact(unfinished);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.writer = AnalysisOrchestrator.daemonThreads("codemind-journal").newThread(this::write);
+        this.writer.start();
+    }
+
+    /**
+     * 끝나지 않은 작업만 남긴 journal 로 교체 (임시 파일에 쓰고 rename)
+     */
+    private void compact(List<Entry> entries) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (Entry entry : entries) {
+                    ByteBuffer buffer = ByteBuffer.wrap(encode(entry));
+                    while (buffer.hasRemaining()) out.write(buffer);
+                }
+                out.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static byte[] encode(Entry entry) {
+        byte[] json = entry.toJSON().toString().getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(json, 0, json.length);
+        byte[] prefix = String.format("%08x ", crc.getValue()).getBytes(StandardCharsets.US_ASCII);
+        byte[] line = new byte[prefix.length + json.length + 1];
+        System.arraycopy(prefix, 0, line, 0, prefix.length);
+        System.arraycopy(json, 0, line, prefix.length, json.length);
+        line[line.length - 1] = '\n';
+        return line;
+    }
+
+    /**
+     * @return crc 가 맞지 않거나 읽을 수 없으면 null
+     */
+    static Entry decode(String line) {
+        if (line.length() < 10 || line.charAt(8) != ' ') return null;
+        try {
+            byte[] json = line.substring(9).getBytes(StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(json, 0, json.length);
+            if (crc.getValue() != Long.parseLong(line.substring(0, 8), 16)) return null;
+            return Entry.fromJSON(new JSONObject(line.substring(9)));
+        } catch (NumberFormatException | JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 이전 실행에서 끝나지 않은 작업 (프로젝트별 마지막 상태, 처음 기록된 순서)
+     */
+    public List<Entry> getOutstanding() {
+        return outstanding;
+    }
+
+    /**
+     * 열 때 무시한 줄 수
+     */
+    public int getCorrupted() {
+        return corrupted;
+    }
+
+    /**
+     * fsync 횟수
+     */
+    public synchronized long getSyncs() {
+        return syncs;
+    }
+
+    /**
+     * 실행 중 compact 횟수 (열 때 제외)
+     */
+    public synchronized long getCompactions() {
+        return compactions;
+    }
+
+    public CompletableFuture<Void> append(String projectName, State state) {
+        return append(projectName, state, 0, null);
+    }
+
+    /**
+     * @return 파일에 기록 (fsync) 된 후 완료
+     */
+    public CompletableFuture<Void> append(String projectName, State state, int sequence, String message) {
+        Pending pending = new Pending(new Entry(projectName, state, sequence, System.currentTimeMillis(), message));
+        if (closed) {
+            pending.written.completeExceptionally(new IOException("journal closed: " + file));
+            return pending.written;
+        }
+        queue.add(pending);
+        return pending.written;
+    }
+
+    /**
+     * writer thread - 쌓여 있는 기록을 한 번에 쓰고 fsync
+     */
+    private void write() {
+        List<Pending> batch = new ArrayList<>();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            if (batch.remove(CLOSE)) {
+                closing = true;
+                queue.drainTo(batch);
+                batch.remove(CLOSE);
+            }
+            if (batch.isEmpty()) continue;
+
+            int size = 0;
+            for (Pending pending : batch) size += pending.line.length;
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            for (Pending pending : batch) buffer.put(pending.line);
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(false);
+                synchronized (this) {
+                    syncs++;
+                }
+                for (Pending pending : batch) pending.written.complete(null);
+            } catch (IOException e) {
+                for (Pending pending : batch) pending.written.completeExceptionally(e);
+            }
+            for (Pending pending : batch) track(pending.entry);
+            batch.clear();
+            if (finished >= COMPACT_THRESHOLD && !closing) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    System.out.println("journal: compact " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void track(Entry entry) {
+        if (entry.state.isFinished()) {
+            live.remove(entry.projectName);
+            finished++;
+        } else {
+            live.put(entry.projectName, entry);
+        }
+    }
+
+    /**
+     * 실행 중 compact (writer thread) - 끝나지 않은 작업만 남긴 파일로 교체한 후 새 파일에 이어서 씁니다.
+     */
+    private void compact() throws IOException {
+        compact(new ArrayList<>(live.values()));
+        FileChannel previous = channel;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        previous.close();
+        finished = 0;
+        synchronized (this) {
+            compactions++;
+        }
+    }
+
+    /**
+     * 남은 기록을 모두 쓴 후 종료
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        for (Pending pending; (pending = queue.poll()) != null; ) {
+            pending.written.completeExceptionally(new IOException("journal closed: " + file));
+        }
+    }
+}
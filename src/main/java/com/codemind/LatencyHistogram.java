@@ -0,0 +1,94 @@
+package com.codemind;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * lock-free latency histogram (HDR histogram 과 같은 log-linear bucket)
+ *      - 2 의 거듭제곱 구간마다 8 개 bucket 으로 나누므로 오차는 최대 12.5% 입니다.
+ *      - 값은 microsecond 단위로 저장하며, 여러 thread 에서 동시에 record 할 수 있습니다.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.incrementAndGet(index(micros));
+        count.increment();
+        sum.add(micros);
+        max.accumulate(micros);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * bucket 에 포함되는 가장 큰 값
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+        return lowest + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return 평균 (us)
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @return 최대값 (us)
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile 0 ~ 100
+     * @return percentile 값 (us), 기록된 값이 없으면 0
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+}
@@ -0,0 +1,102 @@
+package com.codemind;
+
+import java.util.Arrays;
+
+/**
+ * boxing 없이 long key -> int value 를 저장하는 hash map (open addressing)
+ *      - key 는 0 이상이어야 합니다. (-1 은 빈 칸 표시로 사용)
+ */
+public class LongIntHashMap {
+    private static final long EMPTY = -1L;
+
+    public interface Consumer {
+        void accept(long key, int value);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected * 2, 4) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * key 의 값에 delta 를 더함 (없으면 0 에서 시작)
+     */
+    public void addTo(long key, int delta) {
+        if (key < 0) throw new IllegalArgumentException("negative key: " + key);
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size * 2 > keys.length) rehash();
+        } else {
+            values[slot] += delta;
+        }
+    }
+
+    /**
+     * @return 없으면 0
+     */
+    public int get(long key) {
+        if (key < 0) return 0;
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * other 의 값을 모두 더함
+     */
+    public void addAll(LongIntHashMap other) {
+        other.forEach(this::addTo);
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
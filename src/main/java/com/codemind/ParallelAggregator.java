@@ -0,0 +1,236 @@
+package com.codemind;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 취약점 (warns) 병렬 집계
+ *      - 파싱 thread 는 파일 경로, canon id 를 int id 로 바꿔서 chunk (int 배열) 에 담기만 합니다.
+ *      - chunk 가 차면 ForkJoinPool 에 넘기고, 각 chunk 는 fork-join 으로 나눠서 shard 별로 집계한 후 합칩니다.
+ *      - 집계 중에는 boxing 없이 int 배열 / LongIntHashMap 만 사용합니다.
+ *
+ *  ex) WarnStatistics statistics = ParallelAggregator.aggregate(in);
+ *      statistics.countByCwe();
+ *      statistics.countByDirectoryAndCanon();
+ */
+public class ParallelAggregator implements AnalysisResultParser.Handler {
+    static final int CHUNK_SIZE = 64 * 1024;        // 파싱 중 한 번에 넘기는 warn 수
+    static final int THRESHOLD = 8 * 1024;          // 이 수 이하면 나누지 않고 집계
+
+    /**
+     * row 별 파일 / canon id
+     */
+    interface Columns {
+        int file(int row);
+        int canon(int row);
+    }
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final List<ForkJoinTask<Shard>> tasks = new ArrayList<>();
+
+    private final StringTable files = new StringTable();
+    private final StringTable canons = new StringTable();
+    private final List<String> canonCwe = new ArrayList<>();
+    private final IntArrayList canonRisky = new IntArrayList();
+
+    private int[] chunkFiles;
+    private int[] chunkCanons;
+    private int fill;
+
+    public ParallelAggregator() {
+        this(ForkJoinPool.commonPool(), CHUNK_SIZE);
+    }
+
+    public ParallelAggregator(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.chunkFiles = new int[chunkSize];
+        this.chunkCanons = new int[chunkSize];
+    }
+
+    /**
+     * analysis-result 응답 body 를 읽으면서 집계
+     */
+    public static WarnStatistics aggregate(InputStream in) throws IOException {
+        ParallelAggregator aggregator = new ParallelAggregator();
+        try (AnalysisResultParser parser = new AnalysisResultParser(in)) {
+            parser.parse(aggregator);
+        }
+        return aggregator.finish();
+    }
+
+    /**
+     * ColumnarExporter 로 저장한 결과 집계 (column 을 직접 나눠서 집계)
+     */
+    public static WarnStatistics aggregate(ColumnarResultReader reader) {
+        return aggregate(reader, ForkJoinPool.commonPool());
+    }
+
+    public static WarnStatistics aggregate(ColumnarResultReader reader, ForkJoinPool pool) {
+        int fileCount = reader.getFileCount();
+        int canonCount = reader.getCanonCount();
+        Shard shard = pool.invoke(new CountTask(new Columns() {
+            @Override
+            public int file(int row) {
+                return reader.getFile(row);
+            }
+
+            @Override
+            public int canon(int row) {
+                return reader.getCanon(row);
+            }
+        }, 0, reader.getWarnCount(), fileCount, canonCount));
+
+        String[] paths = new String[fileCount];
+        for (int i = 0; i < fileCount; i++) paths[i] = reader.getFilePath(i);
+        String[] canonIds = new String[canonCount];
+        String[] cwe = new String[canonCount];
+        int[] risky = new int[canonCount];
+        for (int i = 0; i < canonCount; i++) {
+            canonIds[i] = reader.getCanonId(i);
+            cwe[i] = reader.getCwe(i);
+            risky[i] = reader.getRisky(i);
+        }
+        return new WarnStatistics(paths, canonIds, cwe, risky, shard.byCanon, shard.byFile, shard.byFileAndCanon);
+    }
+
+    @Override
+    public void canon(JSONObject canon) {
+        int id = canon(canon.optString("id"));
+        canonCwe.set(id, canon.optString("cwe"));
+        canonRisky.set(id, canon.optInt("risky"));
+    }
+
+    @Override
+    public void warn(JSONObject warn) {
+        chunkFiles[fill] = files.intern(warn.optString("file"));
+        chunkCanons[fill] = canon(warn.optString("canon"));
+        if (++fill == chunkSize) {
+            submit();
+        }
+    }
+
+    /**
+     * canons 보다 warns 가 먼저 올 수 있으므로 처음 나온 곳에서 id 를 등록합니다.
+     */
+    private int canon(String canonId) {
+        int id = canons.intern(canonId);
+        if (id == canonRisky.size()) {
+            canonCwe.add("");
+            canonRisky.add(0);
+        }
+        return id;
+    }
+
+    private void submit() {
+        if (fill == 0) return;
+        int[] fileIds = chunkFiles;
+        int[] canonIds = chunkCanons;
+        tasks.add(pool.submit(new CountTask(new Columns() {
+            @Override
+            public int file(int row) {
+                return fileIds[row];
+            }
+
+            @Override
+            public int canon(int row) {
+                return canonIds[row];
+            }
+        }, 0, fill, files.size(), canons.size())));
+        chunkFiles = new int[chunkSize];
+        chunkCanons = new int[chunkSize];
+        fill = 0;
+    }
+
+    /**
+     * 남은 chunk 를 집계하고 모든 shard 를 합침
+     */
+    public WarnStatistics finish() {
+        submit();
+        Shard result = new Shard(files.size(), canons.size());
+        for (ForkJoinTask<Shard> task : tasks) {
+            result.merge(task.join());
+        }
+        tasks.clear();
+
+        String[] paths = new String[files.size()];
+        for (int i = 0; i < paths.length; i++) paths[i] = files.get(i);
+        String[] canonIds = new String[canons.size()];
+        for (int i = 0; i < canonIds.length; i++) canonIds[i] = canons.get(i);
+        return new WarnStatistics(paths, canonIds, canonCwe.toArray(new String[0]), canonRisky.toArray(),
+                result.byCanon, result.byFile, result.byFileAndCanon);
+    }
+
+    /**
+     * 일부 row 의 집계 결과
+     */
+    static final class Shard {
+        final int[] byCanon;
+        final int[] byFile;
+        final LongIntHashMap byFileAndCanon;
+
+        Shard(int fileCount, int canonCount) {
+            byCanon = new int[canonCount];
+            byFile = new int[fileCount];
+            byFileAndCanon = new LongIntHashMap();
+        }
+
+        void add(int file, int canon) {
+            byCanon[canon]++;
+            byFile[file]++;
+            byFileAndCanon.addTo((long) file << 32 | canon, 1);
+        }
+
+        /**
+         * other 의 id 범위는 this 이하여야 합니다. (나중에 만든 shard 에 합침)
+         */
+        Shard merge(Shard other) {
+            for (int i = 0; i < other.byCanon.length; i++) byCanon[i] += other.byCanon[i];
+            for (int i = 0; i < other.byFile.length; i++) byFile[i] += other.byFile[i];
+            byFileAndCanon.addAll(other.byFileAndCanon);
+            return this;
+        }
+    }
+
+    static final class CountTask extends RecursiveTask<Shard> {
+        private static final long serialVersionUID = 1L;
+
+        private final Columns columns;
+        private final int from;
+        private final int to;
+        private final int fileCount;
+        private final int canonCount;
+
+        CountTask(Columns columns, int from, int to, int fileCount, int canonCount) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+            this.fileCount = fileCount;
+            this.canonCount = canonCount;
+        }
+
+        @Override
+        protected Shard compute() {
+            if (to - from <= THRESHOLD) {
+                Shard shard = new Shard(fileCount, canonCount);
+                for (int row = from; row < to; row++) {
+                    shard.add(columns.file(row), columns.canon(row));
+                }
+                return shard;
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(columns, from, middle, fileCount, canonCount);
+            left.fork();
+            Shard right = new CountTask(columns, middle, to, fileCount, canonCount).compute();
+            return right.merge(left.join());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.codemind;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicNameValuePair;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 일괄 등록 (BulkProvisioner) 할 프로젝트 정보
+ *
+ *  manifest 형식 (JSON 배열 또는 {"projects": [...]})
+ *      [
+ *        {"action": "create", "name": "PJ00001", "title": "...", "repotype": "git", "repopath": "https://github.com/TheAlgorithms/Java.git",
+ *         "branch": "master", "buildEnvId": "2", "ruleset_list": "1,2,3", "analtimeout": "0", "equalizer": "100/50/100/100"},
+ *        {"action": "update", "name": "PJ00002", "branch": "develop"},
+ *        {"action": "delete", "name": "PJ00003"}
+ *      ]
+ *  action 을 생략하면 create 입니다.
+ */
+public class ProjectDefinition {
+    public enum Action {
+        CREATE, UPDATE, DELETE
+    }
+
+    private final Action action;
+    private final String name;
+    private final String title;
+    private final String repoType;
+    private final String repoPath;
+    private final String branch;
+    private final String repoId;
+    private final String repoPw;
+    private final String buildEnvId;
+    private final String rulesetList;
+    private final String analTimeout;
+    private final String equalizer;
+
+    public ProjectDefinition(JSONObject json) {
+        name = json.optString("name");
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("project name is required: " + json);
+        }
+        action = Action.valueOf(json.optString("action", "create").toUpperCase());
+        // 없는 항목은 null (update 시 전달하지 않음)
+        title = json.optString("title", null);
+        repoType = json.optString("repotype", null);
+        repoPath = json.optString("repopath", null);
+        branch = json.optString("branch", null);
+        repoId = json.optString("repoid", null);
+        repoPw = json.optString("repopw", null);
+        buildEnvId = json.optString("buildEnvId", null);
+        rulesetList = json.optString("ruleset_list", null);
+        analTimeout = json.optString("analtimeout", null);
+        equalizer = json.optString("equalizer", null);
+    }
+
+    public static List<ProjectDefinition> load(Path manifest) throws IOException {
+        try (Reader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            Object value = new JSONTokener(reader).nextValue();
+            JSONArray projects = value instanceof JSONObject ? ((JSONObject) value).getJSONArray("projects") : (JSONArray) value;
+            List<ProjectDefinition> definitions = new ArrayList<>(projects.length());
+            for (int i = 0; i < projects.length(); i++) {
+                definitions.add(new ProjectDefinition(projects.getJSONObject(i)));
+            }
+            return definitions;
+        }
+    }
+
+    /**
+     * /api/project/create parameters (_csrf 제외)
+     */
+    List<NameValuePair> toCreateForm() {
+        List<NameValuePair> entity = new ArrayList<>();
+        entity.add(new BasicNameValuePair("name", name));
+        entity.add(new BasicNameValuePair("title", orElse(title, name)));
+        entity.add(new BasicNameValuePair("repotype", orElse(repoType, "git")));
+        entity.add(new BasicNameValuePair("repopath", orElse(repoPath, "")));
+        entity.add(new BasicNameValuePair("branch", orElse(branch, "master")));
+        entity.add(new BasicNameValuePair("repoid", orElse(repoId, "")));
+        entity.add(new BasicNameValuePair("repopw", orElse(repoPw, "")));
+        entity.add(new BasicNameValuePair("buildEnvId", orElse(buildEnvId, "")));
+        entity.add(new BasicNameValuePair("ruleset_list", orElse(rulesetList, "")));
+        entity.add(new BasicNameValuePair("analtimeout", orElse(analTimeout, "0")));
+        entity.add(new BasicNameValuePair("equalizer", orElse(equalizer, "")));
+        return entity;
+    }
+
+    /**
+     * /api/project/{name}/update parameters (_csrf 제외, create 와 parameter 이름이 다릅니다.)
+     *      - manifest 에 있는 항목만 전달합니다.
+     */
+    List<NameValuePair> toUpdateForm() {
+        List<NameValuePair> entity = new ArrayList<>();
+        add(entity, "title", title);
+        add(entity, "repoType", repoType);
+        add(entity, "repoPath", repoPath);
+        add(entity, "branch", branch);
+        add(entity, "buildEnvId", buildEnvId);
+        add(entity, "rulesetList", rulesetList);
+        add(entity, "analtimeout", analTimeout);
+        add(entity, "equalizer", equalizer);
+        return entity;
+    }
+
+    private static void add(List<NameValuePair> entity, String name, String value) {
+        if (value != null) entity.add(new BasicNameValuePair(name, value));
+    }
+
+    private static String orElse(String value, String defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getRepoType() {
+        return repoType;
+    }
+
+    public String getRepoPath() {
+        return repoPath;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public String getBuildEnvId() {
+        return buildEnvId;
+    }
+
+    public String getRulesetList() {
+        return rulesetList;
+    }
+
+    public String getEqualizer() {
+        return equalizer;
+    }
+
+    @Override
+    public String toString() {
+        return action.name().toLowerCase() + " " + name;
+    }
+}
@@ -0,0 +1,64 @@
+package com.codemind;
+
+import org.json.JSONObject;
+
+/**
+ * 프로젝트 1건의 일괄 등록 결과
+ */
+public class ProvisionResult {
+    public enum Status {
+        SUCCESS,        // 요청 성공
+        SKIPPED,        // 이미 원하는 상태 (생성 - 이미 있음, 삭제 - 없음)
+        FAILED
+    }
+
+    private final ProjectDefinition project;
+    private final Status status;
+    private final int attempts;
+    private final long elapsedMillis;
+    private final String message;
+
+    public ProvisionResult(ProjectDefinition project, Status status, int attempts, long elapsedMillis, String message) {
+        this.project = project;
+        this.status = status;
+        this.attempts = attempts;
+        this.elapsedMillis = elapsedMillis;
+        this.message = message;
+    }
+
+    public ProjectDefinition getProject() {
+        return project;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("name", project.getName())
+                .put("action", project.getAction().name().toLowerCase())
+                .put("status", status.name())
+                .put("attempts", attempts)
+                .put("elapsed", elapsedMillis)
+                .put("message", message == null ? "" : message);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s] %s %s (attempts: %d, %dms) %s", project.getName(), project.getAction().name().toLowerCase(),
+                status, attempts, elapsedMillis, message == null ? "" : message);
+    }
+}
@@ -1,33 +1,35 @@
 package com.codemind;
 
 import org.apache.http.*;
-import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
 import org.apache.http.impl.client.BasicResponseHandler;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.ssl.SSLContextBuilder;
 import org.json.JSONObject;
 
-import javax.security.auth.login.LoginException;
+import javax.management.JMException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.InvalidParameterException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 /**
  * CODEMIND REST api example code
@@ -39,25 +41,61 @@ import java.util.concurrent.TimeUnit;
  *
  *  테스트 전 코드마인드에 프로젝트(ex. kr.codemind.lab)가 등록 되어있어야 합니다. (git or 소스경로지정)
  *  아래 서버 URL 및 인증정보 그리고 프로젝트 명을 기입 한 후 실행하면 됩니다.
+ *  (codemind.properties 에 url, username, password, project 등을 지정해도 됩니다. - CodemindConfig)
  */
 public class RestSample {
+    static HttpClientPool httpClientPool;
     static CloseableHttpClient httpclient;
-    static final int REQUEST_TIMEOUT = 3600;        // 1 hour
-    static final String CODEMIND_URL = "http://10.0.1.123:8083";
-    static final String USERNAME = "openapi";
-    static final String PASSWORD = "codemind@2";
-    static final String PROJECT_NAME = "project_1";
-
-    static String csrf = "";
+    // 아래 설정은 codemind.properties (-Dcodemind.config) 에서 읽고 없으면 기본값을 사용합니다. (CodemindConfig)
+    static final CodemindConfig CONFIG = CodemindConfig.load();
+    static final int REQUEST_TIMEOUT = CONFIG.getInt("request.timeout", 3600);                 // 1 hour
+    static final String CODEMIND_URL = CONFIG.get("url", "http://10.0.1.123:8083");
+    static final String USERNAME = CONFIG.get("username", "openapi");
+    static final String PASSWORD = CONFIG.get("password", "codemind@2");
+    static final String PROJECT_NAME = CONFIG.get("project", "project_1");
+    static final int MAX_IN_FLIGHT = CONFIG.getInt("max.in.flight", 10);                      // 서버에서 동시에 진행할 최대 분석 건수
+    static final int FETCH_THREADS = CONFIG.getInt("fetch.threads", 4);                       // 분석 요청 / 결과 조회 thread 수
+    static final String CACHE_DIR = CONFIG.get("cache.dir", "codemind-cache");                // 분석 결과 cache 경로
+    static final long CACHE_MAX_BYTES = CONFIG.getLong("cache.max.bytes", 1L << 30);          // 1GB (압축 후)
+    static final int CACHE_MAX_ENTRIES = CONFIG.getInt("cache.max.entries", 1000);            // memory cache 최대 건수
+    static final int PROVISION_THREADS = CONFIG.getInt("provision.threads", 8);               // 프로젝트 일괄 등록 동시 요청 수
+    static final double PROVISION_RATE = CONFIG.getDouble("provision.rate", 20);              // 프로젝트 일괄 등록 초당 최대 요청 수
+    static final String JOURNAL_FILE = CONFIG.get("journal.file", "codemind-journal.log");    // 분석 작업 상태 기록 (재실행 시 이어서 진행)
+    static final String RESULT_QUERY = CONFIG.get("result.query", "");                        // 분석 결과 조회 시 추가할 query (서버에서 files[*].code 제외를 지원하는 경우 지정)
+    static final String ARCHIVE_DIR = CONFIG.get("archive.dir", "codemind-archive");          // 분석 결과 원본 보관 경로 (--archive)
+    static final boolean ARCHIVE_COMPRESS = CONFIG.getBoolean("archive.compress", true);      // 분석 결과 원본 gzip 압축 보관
+    static final int DAEMON_PORT = CONFIG.getInt("daemon.port", 9700);                        // --daemon 작업 요청 port (localhost, 0 이면 사용 안 함)
+    static final String DAEMON_SPOOL_DIR = CONFIG.get("daemon.spool.dir", "codemind-spool");  // --daemon 작업 요청 파일 경로 (빈 값이면 사용 안 함)
+    static final long DAEMON_KEEPALIVE = CONFIG.getLong("daemon.keepalive", 300);             // --daemon session 유지 요청 간격 (초, 0 이면 사용 안 함)
+    static final String DAEMON_TOKEN = CONFIG.get("daemon.token", "");                        // --daemon socket 의 shutdown 명령 token (빈 값이면 shutdown 명령 사용 안 함, 다른 명령은 인증 없음)
+    static final long DAEMON_SHUTDOWN_WAIT = CONFIG.getLong("daemon.shutdown.wait", 30);      // --daemon 종료 signal 후 진행중인 분석 / journal 정리를 기다리는 시간 (초)
+    // URL path 에 그대로 넣으므로 "/", "?", "%" 등이 들어간 이름이나 "..", "." 로 다른 API 가 호출되지 않도록 제한
+    static final Pattern PROJECT_NAME_FORMAT = Pattern.compile("(?!\\.+$)[A-Za-z0-9._-]+");
+    static SessionManager session;
+    static ClientMetrics metrics = new ClientMetrics();
+    // endpoint 별 동시 요청 수는 서버 상태에 따라 조정 (최대값은 connection pool 크기)
+    static AdaptiveLimiter limiter = AdaptiveLimiter.custom()
+            .initialLimit(MAX_IN_FLIGHT)
+            .maxLimit(MAX_IN_FLIGHT + FETCH_THREADS + 10)
+            .build();
+    static StatusScheduler statusScheduler;
+    static ResultCache resultCache;
 
     private static void createHttpClient() throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
-        SSLContextBuilder sslContextBuilder = new SSLContextBuilder();
-        sslContextBuilder.loadTrustMaterial(null, new TrustSelfSignedStrategy());
-        SSLConnectionSocketFactory sslConnectionSocketFactory = new SSLConnectionSocketFactory(sslContextBuilder.build(), NoopHostnameVerifier.INSTANCE);
-
-        httpclient = HttpClients.custom()
-                .setSSLSocketFactory(sslConnectionSocketFactory)
+        // 여러 thread 에서 동시에 요청하므로 route 당 connection 수를 동시 분석 + 결과 조회 thread 수 이상으로 설정
+        httpClientPool = HttpClientPool.custom()
+                .maxTotal(MAX_IN_FLIGHT + FETCH_THREADS + 10)
+                .maxPerRoute(MAX_IN_FLIGHT + FETCH_THREADS + 10)
+                .metrics(metrics)
                 .build();
+        httpclient = httpClientPool.getClient();
+        session = new SessionManager(httpclient, CODEMIND_URL, USERNAME, PASSWORD, metrics, limiter);
+        try {
+            // jconsole 등에서 com.codemind:type=ClientMetrics 로 조회
+            metrics.registerMBeans("RestSample");
+        } catch (JMException e) {
+            System.out.println("metrics: " + e.getMessage());
+        }
     }
 
     public static void main(String[] args) throws IOException, NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
@@ -65,58 +103,157 @@ public class RestSample {
 
         login();
 
-        checkLogin();
+        try {
+            if (args.length > 1 && args[0].equals("--provision")) {
+                // 프로젝트 일괄 생성 / 수정 / 삭제 (--provision manifest.json)
+                provision(Paths.get(args[1]));
+                return;
+            }
+
+            if (args.length > 2 && args[0].equals("--archive")) {
+                // 분석 결과 원본 보관 (--archive project sequence)
+                archiveResult(args[1], Integer.parseInt(args[2]));
+                return;
+            }
+
+            if (args.length == 1 && args[0].equals("--daemon")) {
+                // 상주 실행 - socket / spool 디렉토리로 작업 요청을 받습니다. (CodemindDaemon)
+                daemon();
+                return;
+            }
+
+            if (args.length == 1 && args[0].equals("--resume")) {
+                // 이전 실행에서 끝나지 않은 분석만 이어서 진행
+                analyzeAll(Collections.<String>emptyList());
+                return;
+            }
+
+            if (args.length > 0) {
+                // 실행 인자로 전달된 프로젝트들을 동시에 분석
+                analyzeAll(Arrays.asList(args));
+                return;
+            }
+
+            analyze(PROJECT_NAME);
+
+            int seq = checkAnal(PROJECT_NAME);
 
-        analyze(PROJECT_NAME);
+            loadAnalysisResult(PROJECT_NAME, seq);
 
-        int seq = checkAnal(PROJECT_NAME);
+            loadAnalysisResultRuleStatistics(PROJECT_NAME, seq);
 
-        loadAnalysisResult(PROJECT_NAME, seq);
+            loadWarnStatistics(PROJECT_NAME, seq);
 
-        loadAnalysisResultRuleStatistics(PROJECT_NAME, seq);
+            loadAnalysisResultModel(PROJECT_NAME, seq);
 
-        addProject();
-        updateProject();
-        deleteProject();
+            addProject();
+            updateProject();
+            deleteProject();
+        } finally {
+            // endpoint 별 요청 통계
+            System.out.println("------------------------------------------------------------------------------");
+            System.out.println(metrics);
+            System.out.println(limiter);
+        }
+    }
+
+    /**
+     * 여러 프로젝트 분석 요청 및 결과 조회
+     *      - JOURNAL_FILE 에 남아 있는 이전 실행의 작업을 먼저 이어서 진행하고, 그 외 프로젝트만 새로 분석 요청합니다.
+     * @param projectNames
+     */
+    private static void analyzeAll(List<String> projectNames) throws IOException {
+        try (JobJournal journal = new JobJournal(Paths.get(JOURNAL_FILE));
+             AnalysisOrchestrator orchestrator = new AnalysisOrchestrator(MAX_IN_FLIGHT, FETCH_THREADS, statusScheduler(), journal)) {
+            Map<String, CompletableFuture<AnalysisSummary>> results = orchestrator.resume(RestSample::loadAnalysisResult);
+            for (String projectName : projectNames) {
+                if (!results.containsKey(projectName)) {
+                    results.put(projectName, orchestrator.submit(projectName, RestSample::loadAnalysisResult));
+                }
+            }
+            results.forEach((projectName, result) -> result.whenComplete((summary, ex) -> {
+                if (ex != null) {
+                    System.out.println(String.format("[%s] %s", projectName, ex.getMessage()));
+                }
+            }));
+        }
+    }
+
+    /**
+     * 상주 실행 - shutdown 명령 또는 종료 signal 까지 session / connection pool 을 유지하면서 작업 요청 처리
+     *      - DAEMON_PORT (localhost socket), DAEMON_SPOOL_DIR (spool 디렉토리) 로 요청을 받습니다.
+     *      - JOURNAL_FILE 에 남아 있는 이전 실행의 분석을 먼저 이어서 진행합니다.
+     *      - 종료 시 진행중인 분석이 끝날 때까지 기다립니다.
+     *        종료 signal 은 await() 만 반환시키고, 종료 처리 (daemon -> orchestrator -> journal) 는 main thread 에서 합니다.
+     *        signal 로 종료된 경우 DAEMON_SHUTDOWN_WAIT 초까지만 기다리고, 끝나지 않은 분석은 다음 실행에서 이어서 진행합니다.
+     */
+    private static void daemon() throws IOException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        try (JobJournal journal = new JobJournal(Paths.get(JOURNAL_FILE));
+             AnalysisOrchestrator orchestrator = new AnalysisOrchestrator(MAX_IN_FLIGHT, FETCH_THREADS, statusScheduler(), journal);
+             CodemindDaemon daemon = new CodemindDaemon(orchestrator, FETCH_THREADS, DAEMON_TOKEN)) {
+            // hook 이 끝나면 JVM 이 종료되므로 main thread 의 close 가 끝날 때까지 기다립니다.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                daemon.shutdown();
+                try {
+                    stopped.await(DAEMON_SHUTDOWN_WAIT, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            daemon.resume();
+            if (DAEMON_KEEPALIVE > 0) daemon.keepAlive(session, DAEMON_KEEPALIVE, TimeUnit.SECONDS);
+            if (DAEMON_PORT > 0) daemon.listen(DAEMON_PORT);
+            if (!DAEMON_SPOOL_DIR.isEmpty()) daemon.watch(Paths.get(DAEMON_SPOOL_DIR));
+            daemon.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * manifest 의 프로젝트 일괄 생성 / 수정 / 삭제
+     *      - 결과는 manifest 와 같은 경로에 *.report.json 으로 저장합니다.
+     * @param manifest
+     */
+    private static void provision(Path manifest) throws IOException {
+        List<ProjectDefinition> projects = ProjectDefinition.load(manifest);
+        Path report = manifest.resolveSibling(manifest.getFileName() + ".report.json");
+        try (BulkProvisioner provisioner = new BulkProvisioner(session, CODEMIND_URL, PROVISION_THREADS, PROVISION_RATE)) {
+            List<ProvisionResult> results = provisioner.provision(projects);
+            BulkProvisioner.writeReport(results, report);
+        }
+        System.out.println("provision report: " + report);
     }
 
     /**
      * 로그인
+     *      - cookie 와 _csrf 는 SessionManager 에서 관리하며, session 이 만료되면 자동으로 다시 로그인합니다.
      * @throws IOException
      */
     private static void login() throws IOException {
-        HttpPost post = new HttpPost(CODEMIND_URL + "/user/login/process");
-        List<NameValuePair> entity = new ArrayList();
-        entity.add(new BasicNameValuePair("REQUEST_KIND", "API"));
-        entity.add(new BasicNameValuePair("username", USERNAME));
-        entity.add(new BasicNameValuePair("password", PASSWORD));
-        post.setEntity(new UrlEncodedFormEntity(entity));
-
-        CloseableHttpResponse response = null;
         try {
-            response = httpclient.execute(post);
-            String content = new BasicResponseHandler().handleEntity(response.getEntity());
-            if( response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
-                if(content.startsWith("CM-")) {
-                    // application fail
-                    throw new LoginException("login failed: " + content);
-                }
-                else {
-                    // success
-                    // cookie = response.getFirstHeader("Set-Cookie").getValue();       // request header에 cookie 자동적용
-                    System.out.println("login successfully");
-                }
-            }
-            else {
-                throw new HttpResponseException(response.getStatusLine().getStatusCode(), content);
-            }
+            String csrf = session.login();
+            System.out.println("loginCheck _csrf: " + csrf);
         }
         catch(Exception ex) {
             ex.printStackTrace();
         }
-        finally {
-            if(response != null) response.close();
+    }
+
+    /**
+     * URL path 에 넣을 프로젝트 이름 확인
+     * @param projectName
+     * @return projectName
+     * @throws InvalidParameterException PROJECT_NAME_FORMAT 과 맞지 않는 경우
+     */
+    static String checkProjectName(String projectName) {
+        if (projectName == null || !PROJECT_NAME_FORMAT.matcher(projectName).matches()) {
+            throw new InvalidParameterException("invalid project name: " + projectName);
         }
+        return projectName;
     }
 
     /**
@@ -124,11 +261,11 @@ public class RestSample {
      * @param projectName
      * @throws IOException
      */
-    private static void analyze(String projectName) throws IOException {
-        HttpPost post = new HttpPost(CODEMIND_URL + "/api/analysis/" + projectName);      // 현재 API
+    static void analyze(String projectName) throws IOException {
+        HttpPost post = new HttpPost(CODEMIND_URL + "/api/analysis/" + checkProjectName(projectName));      // 현재 API
         CloseableHttpResponse response = null;
         try {
-            response = httpclient.execute(post);
+            response = session.execute(csrf -> post);
             String content = new BasicResponseHandler().handleEntity(response.getEntity());
             if( response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
                 JSONObject json = new JSONObject(content);
@@ -144,51 +281,60 @@ public class RestSample {
 
     /**
      * 프로젝트 분석 진행상태 체크
+     *      - 상태 조회는 공용 StatusScheduler 에서 수행하고 완료될 때까지 대기합니다.
      * @param projectName
+     * @return 분석 성공 시 sequence, 실패 시 0
      * @throws IOException
      */
-    private static int checkAnal(String projectName) throws IOException {
-        CloseableHttpResponse response = null;
+    static int checkAnal(String projectName) throws IOException {
         int sequence = 0;
         try {
-            int count = 0;
-            while(true) {
-                if( count >= REQUEST_TIMEOUT ) {
-                    System.out.println(String.format("[%s] analysis failed: request timeout %s sec.", projectName, count));
-                    break;
-                }
-                HttpGet get = new HttpGet(CODEMIND_URL + "/api/" + projectName + "/status");
-                response = httpclient.execute(get);
-                String content = new BasicResponseHandler().handleEntity(response.getEntity());
-                if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
-                    JSONObject json = new JSONObject(content);
-                    String status = json.getString("status");
-                    if (status.equals("success")) {
-                        // success
-                        System.out.println("analysis successfully");
-                        sequence = Integer.parseInt(Optional.ofNullable(json.getString("sequence")).orElse("0"));       // numOfReports > sequence 로 변경 - 23/03/07
-                        break;
-                    } else if (isRunning(status)) {     // 진행중 상태체크 변경 - 23/03/09
-                        // noop
-                        System.out.println(status + "..." + count);
-                    } else {
-                        // analysis failed
-                        System.out.println("analysis failed");
-                        break;
-                    }
-                } else {
-                    throw new InvalidParameterException(content);
-                }
+            sequence = statusScheduler().watch(projectName).get();
+            System.out.println("analysis successfully");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof InvalidParameterException) throw (InvalidParameterException) cause;
+            System.out.println(cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return sequence;
+    }
 
-                count += 5;
-                TimeUnit.SECONDS.sleep(5);
+    /**
+     * 프로젝트 분석 진행상태 조회
+     * @param projectName
+     * @return status, sequence 등
+     * @throws IOException
+     */
+    static JSONObject getStatus(String projectName) throws IOException {
+        HttpGet get = new HttpGet(CODEMIND_URL + "/api/" + checkProjectName(projectName) + "/status");
+        CloseableHttpResponse response = session.execute(csrf -> get);
+        try {
+            String content = new BasicResponseHandler().handleEntity(response.getEntity());
+            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
+                return new JSONObject(content);         // numOfReports > sequence 로 변경 - 23/03/07
+            } else {
+                throw new InvalidParameterException(content);
             }
-        } catch (InterruptedException e) {
-            // noop
         } finally {
-            if(response != null) response.close();
+            response.close();
         }
-        return sequence;
+    }
+
+    static synchronized ResultCache resultCache() throws IOException {
+        if (resultCache == null) {
+            resultCache = new ResultCache(Paths.get(CACHE_DIR), CACHE_MAX_BYTES, CACHE_MAX_ENTRIES, RestSample::openResult, RESULT_QUERY);
+        }
+        return resultCache;
+    }
+
+    static synchronized StatusScheduler statusScheduler() {
+        if (statusScheduler == null) {
+            statusScheduler = new StatusScheduler();
+        }
+        return statusScheduler;
     }
 
     /**
@@ -196,7 +342,7 @@ public class RestSample {
      * @param status
      * @return
      */
-    private static boolean isRunning(String status) {
+    static boolean isRunning(String status) {
         if(!status.equals("success") && !status.equals("stop") && !status.equals("fail") && !status.equals("")) {
             return true;
         }
@@ -205,26 +351,39 @@ public class RestSample {
 
     /**
      * 프로젝트 분석 결과 조회
+     *      - 같은 sequence 의 결과는 ResultCache 에서 조회하고 서버에는 다시 요청하지 않습니다.
+     * @param projectName
+     * @param sequence
+     * @return 분석결과 요약정보
+     */
+    static AnalysisSummary loadAnalysisResult(String projectName, int sequence) throws IOException {
+        AnalysisSummary summary = resultCache().getAnalysisSummary(projectName, sequence);
+        System.out.println("------------------------------------------------------------------------------");
+        System.out.println(summary);
+        return summary;
+    }
+
+    /**
+     * 분석 결과 응답 body 조회 (ResultCache 에 없을 때 호출됩니다.)
+     *      - 반환된 stream 을 닫으면 connection 이 반환됩니다.
+     *      - gzip / deflate 로 압축해서 받고 읽는 동안 풀립니다. (HttpClientPool)
      * @param projectName
      * @param sequence
+     * @param endpoint analysis-result, analysis-result-rule-statistics
      */
-    private static void loadAnalysisResult(String projectName, int sequence) throws IOException {
-        String url = CODEMIND_URL + "/api/" + projectName + "/" + sequence + "/analysis-result";
+    static InputStream openResult(String projectName, int sequence, ResultCache.Endpoint endpoint) throws IOException {
+        String url = CODEMIND_URL + "/api/" + checkProjectName(projectName) + "/" + sequence + "/" + endpoint.getPath();
+        if (endpoint == ResultCache.Endpoint.ANALYSIS_RESULT && !RESULT_QUERY.isEmpty()) {
+            url += "?" + RESULT_QUERY;
+        }
         System.out.println("URL: " + url);
         HttpGet get = new HttpGet(url);
-        CloseableHttpResponse response = httpclient.execute(get);
-        String content = new BasicResponseHandler().handleEntity(response.getEntity());
+        CloseableHttpResponse response = session.execute(csrf -> get);
         if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
-            JSONObject json = new JSONObject(content);
             // 조회된 결과에는 아래와 같이 분석결과 요약정보 및 각 파일에 상세 취약점 정보가 포함됩니다.
             // warns: [] - 취약점 목록, files: {} - 파일 목록, canons: [] - 규칙 목록
-            System.out.println("------------------------------------------------------------------------------");
-            System.out.println("project: " + json.getString("project") +
-                    ", totalLines: " + json.getInt("totalLines") +
-                    ", files: " + json.getJSONObject("files").length() +
-                    ", vulnerability: " + json.getJSONArray("warns").length() +
-                    ", startTime: " + json.getInt("startTime") +
-                    ", endTime: " + json.getInt("endTime"));
+            // 결과 전체를 String / JSONObject 로 만들지 않고 AnalysisResultParser 로 항목별로 읽습니다.
+            return response.getEntity().getContent();
 
 
 
@@ -396,6 +555,7 @@ public class RestSample {
             //      ]
             //    }
         } else {
+            String content = new BasicResponseHandler().handleEntity(response.getEntity());
             throw new InvalidParameterException(content);
         }
     }
@@ -406,51 +566,73 @@ public class RestSample {
      * @param sequence
      */
     private static void loadAnalysisResultRuleStatistics(String projectName, int sequence) throws IOException {
-        String url = CODEMIND_URL + "/api/" + projectName + "/" + sequence + "/analysis-result-rule-statistics";
-        System.out.println("URL: " + url);
-        HttpGet get = new HttpGet(url);
-        CloseableHttpResponse response = httpclient.execute(get);
-        String content = new BasicResponseHandler().handleEntity(response.getEntity());
-        if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
-            JSONObject json = new JSONObject(content);
-            // 조회된 결과에는 아래와 같이 분석결과 요약정보 및 각 파일에 상세 취약점 정보가 포함됩니다.
-            // warns: [] - 취약점 목록, files: {} - 파일 목록, canons: [] - 규칙 목록
-            System.out.println("------------------------------------------------------------------------------");
-            System.out.println("project: " + json.getString("project_name") +
-                    ", totalLines: " + json.getInt("total_lines") +
-                    ", files: " + json.getInt("total_files") +
-                    ", canons: " + json.getJSONArray("canons").length() +
-                    ", startTime: " + json.getInt("start_time") +
-                    ", endTime: " + json.getInt("end_time"));
-        } else {
-            throw new InvalidParameterException(content);
+        JSONObject json = resultCache().getRuleStatistics(projectName, sequence);
+        System.out.println("------------------------------------------------------------------------------");
+        System.out.println("project: " + json.getString("project_name") +
+                ", totalLines: " + json.getInt("total_lines") +
+                ", files: " + json.getInt("total_files") +
+                ", canons: " + json.getJSONArray("canons").length() +
+                ", startTime: " + json.getInt("start_time") +
+                ", endTime: " + json.getInt("end_time"));
+    }
+
+    /**
+     * 취약점 통계 (CWE, risky, 디렉토리 별) - 서버 rule statistics 에 없는 항목을 client 에서 집계
+     * @param projectName
+     * @param sequence
+     */
+    static WarnStatistics loadWarnStatistics(String projectName, int sequence) throws IOException {
+        WarnStatistics statistics;
+        try (InputStream in = resultCache().open(projectName, sequence, ResultCache.Endpoint.ANALYSIS_RESULT)) {
+            statistics = ParallelAggregator.aggregate(in);
         }
+        System.out.println("------------------------------------------------------------------------------");
+        System.out.println("total: " + statistics.getTotal() + ", cwe: " + statistics.countByCwe() + ", risky: " + statistics.countByRisky());
+        return statistics;
     }
 
     /**
-     * /user/login/check
+     * 분석 결과 전체를 memory 에 올려서 조회 (보고서 생성 등)
+     *      - JSONObject 대신 AnalysisResultModel (id table + int 배열) 로 읽습니다.
+     * @param projectName
+     * @param sequence
      */
-    private static void checkLogin() throws IOException {
-        CloseableHttpResponse response = null;
-        try {
-            int count = 0;
-            HttpGet get = new HttpGet(CODEMIND_URL + "/user/login/check");
-            get.setHeader("Referer", "http://127.0.0.1:8080/user/login/process");       // value 값에 아무 URL을 전달하면 됩니다.
-            System.out.println("Referer: " + get.getFirstHeader("Referer"));
-            response = httpclient.execute(get);
-            String content = new BasicResponseHandler().handleEntity(response.getEntity());
-            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
-                JSONObject json = new JSONObject(content);
-                csrf = json.getString("_csrf");
-                System.out.println("loginCheck Response: " + content);
-            } else {
+    static AnalysisResultModel loadAnalysisResultModel(String projectName, int sequence) throws IOException {
+        AnalysisResultModel model;
+        try (InputStream in = resultCache().open(projectName, sequence, ResultCache.Endpoint.ANALYSIS_RESULT)) {
+            model = AnalysisResultModel.read(in);
+        }
+        System.out.println("------------------------------------------------------------------------------");
+        System.out.println(model);
+        for (int canon = 0; canon < model.getCanonCount(); canon++) {
+            System.out.println(model.getCanonId(canon) + " (" + model.getCwe(canon) + ", risky " + model.getRisky(canon) + "): " + model.getCanonWarnCount(canon));
+        }
+        return model;
+    }
+
+    /**
+     * 분석 결과 원본 보관 (감사용)
+     *      - 응답 body 를 String / JSONObject 로 만들지 않고 그대로 ARCHIVE_DIR 에 저장합니다. (ResultArchiver)
+     *      - 원본 전체를 보관하므로 RESULT_QUERY 는 적용하지 않습니다.
+     * @param projectName
+     * @param sequence
+     * @return 보관한 파일 정보 (경로, 크기, SHA-256)
+     */
+    static ResultArchiver.Archive archiveResult(String projectName, int sequence) throws IOException {
+        ResultArchiver archiver = new ResultArchiver(Paths.get(ARCHIVE_DIR), ARCHIVE_COMPRESS);
+        ResultCache.Endpoint endpoint = ResultCache.Endpoint.ANALYSIS_RESULT;
+        String url = CODEMIND_URL + "/api/" + checkProjectName(projectName) + "/" + sequence + "/" + endpoint.getPath();
+        System.out.println("URL: " + url);
+        ResultArchiver.Archive archive = session.execute(csrf -> new HttpGet(url), response -> {
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                String content = new BasicResponseHandler().handleEntity(response.getEntity());
                 throw new InvalidParameterException(content);
             }
-        } catch (Exception e) {
-            System.out.println("checkLogin: " + e.getMessage());
-        } finally {
-            if(response != null) response.close();
-        }
+            return archiver.archive(response.getEntity(), projectName, sequence, endpoint);
+        });
+        System.out.println("------------------------------------------------------------------------------");
+        System.out.println("archived: " + archive);
+        return archive;
     }
 
     private static void addProject() throws IOException {
@@ -469,10 +651,14 @@ public class RestSample {
             entity.add(new BasicNameValuePair("ruleset_list", "1,2,3"));
             entity.add(new BasicNameValuePair("analtimeout", "0"));
             entity.add(new BasicNameValuePair("equalizer", "100/50/100/100"));
-            entity.add(new BasicNameValuePair("_csrf", csrf));
-            post.setEntity(new UrlEncodedFormEntity(entity));
             post.setHeader("Referer", "http://10.0.0.23:8080");
-            response = httpclient.execute(post);
+            response = session.execute(csrf -> {
+                // 재로그인 후 다시 요청할 때는 새 _csrf 로 만듭니다.
+                List<NameValuePair> form = new ArrayList<>(entity);
+                form.add(new BasicNameValuePair("_csrf", csrf));
+                post.setEntity(new UrlEncodedFormEntity(form));
+                return post;
+            });
             String content = new BasicResponseHandler().handleEntity(response.getEntity());
             if( response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
                 System.out.println("project create failed: " + content);
@@ -498,7 +684,7 @@ public class RestSample {
             entity.add(new BasicNameValuePair("buildEnvId", "2"));
             entity.add(new BasicNameValuePair("rulesetList", "1,2,3"));
             put.setEntity(new UrlEncodedFormEntity(entity));
-            response = httpclient.execute(put);
+            response = session.execute(csrf -> put);
             String content = new BasicResponseHandler().handleEntity(response.getEntity());
             if( response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
                 System.out.println("project update failed: " + content);
@@ -516,7 +702,7 @@ public class RestSample {
         try {
             int count = 0;
             HttpGet get = new HttpGet(CODEMIND_URL + "/api/project/PJ00001/delete");
-            response = httpclient.execute(get);
+            response = session.execute(csrf -> get);
             String content = new BasicResponseHandler().handleEntity(response.getEntity());
             if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                 System.out.println("project delete ok...");
@@ -0,0 +1,213 @@
+package com.codemind;
+
+import org.apache.http.HttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 분석 결과 응답 body 보관 (감사용)
+ *      - 응답 body 를 String 으로 만들지 않고 64KB buffer 하나로 channel 에서 파일로 바로 씁니다. (응답 크기와 관계없이 heap 사용량 일정)
+ *      - compress 면 gzip 으로 압축해서 저장합니다.
+ *      - 파일 이름: {project}-{hash}-{sequence}-{endpoint}.json[.gz] (ResultCache.key - 이름이 비슷한 프로젝트끼리 덮어쓰지 않음)
+ *      - 저장한 파일 (압축했으면 .gz) 의 SHA-256 을 {저장한 파일 이름}.sha256 에 sha256sum 형식으로 함께 저장합니다.
+ *        ex) sha256sum -c {name}.json.gz.sha256
+ *        원본 (압축 전) 의 SHA-256 은 Archive.getSha256 으로 반환합니다. (zcat {name}.json.gz | sha256sum 과 같은 값)
+ *      - 임시 파일에 쓰고 fsync 후 rename 하므로 중간에 종료되어도 불완전한 파일이 남지 않습니다.
+ *        checksum 을 먼저 rename 하므로 checksum 없는 파일은 남지 않고, 중간에 종료되면 verify() 가 false 를 반환합니다.
+ *
+ *  ex) ResultArchiver archiver = new ResultArchiver(Paths.get("codemind-archive"), true);
+ *      session.execute(csrf -> new HttpGet(url), response -> archiver.archive(response.getEntity(), projectName, sequence, endpoint));
+ */
+public class ResultArchiver {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 보관한 파일 정보
+     */
+    public static class Archive {
+        private final Path path;
+        private final Path checksumPath;
+        private final String sha256;
+        private final String storedSha256;
+        private final long contentLength;
+        private final long storedLength;
+
+        Archive(Path path, Path checksumPath, String sha256, String storedSha256, long contentLength, long storedLength) {
+            this.path = path;
+            this.checksumPath = checksumPath;
+            this.sha256 = sha256;
+            this.storedSha256 = storedSha256;
+            this.contentLength = contentLength;
+            this.storedLength = storedLength;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public Path getChecksumPath() {
+            return checksumPath;
+        }
+
+        /**
+         * @return 원본 (압축 전) 의 SHA-256 (hex)
+         */
+        public String getSha256() {
+            return sha256;
+        }
+
+        /**
+         * @return 저장한 파일의 SHA-256 (hex, checksum 파일에 기록한 값 - 압축하지 않았으면 getSha256 과 같음)
+         */
+        public String getStoredSha256() {
+            return storedSha256;
+        }
+
+        /**
+         * @return 원본 크기 (압축 전)
+         */
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        /**
+         * @return 파일 크기
+         */
+        public long getStoredLength() {
+            return storedLength;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d bytes, stored %d bytes, sha256 %s)", path, contentLength, storedLength, sha256);
+        }
+    }
+
+    private final Path directory;
+    private final boolean compress;
+
+    /**
+     * @param directory 보관 경로
+     * @param compress gzip 압축 여부
+     */
+    public ResultArchiver(Path directory, boolean compress) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.compress = compress;
+    }
+
+    /**
+     * 응답 body 보관 (entity 의 stream 은 다 읽은 후 닫습니다.)
+     */
+    public Archive archive(HttpEntity entity, String projectName, int sequence, ResultCache.Endpoint endpoint) throws IOException {
+        if (entity == null) {
+            throw new IOException(String.format("[%s] empty response: %s", projectName, endpoint.getPath()));
+        }
+        return archive(entity.getContent(), projectName, sequence, endpoint);
+    }
+
+    public Archive archive(InputStream in, String projectName, int sequence, ResultCache.Endpoint endpoint) throws IOException {
+        String name = ResultCache.key(projectName, sequence, endpoint) + ".json";
+        String storedName = compress ? name + ".gz" : name;
+        Path target = directory.resolve(storedName);
+        Path checksum = directory.resolve(storedName + ".sha256");
+        MessageDigest digest = sha256();
+        MessageDigest storedDigest = compress ? sha256() : digest;
+        long contentLength = 0;
+
+        Path temp = Files.createTempFile(directory, name, ".tmp");
+        try {
+            try (ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel file = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 GZIPOutputStream gzip = compress
+                         ? new GZIPOutputStream(new DigestOutputStream(Channels.newOutputStream(file), storedDigest), BUFFER_SIZE)
+                         : null) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                while (source.read(buffer) != -1) {
+                    ((Buffer) buffer).flip();       // java 8 호환 (Buffer 의 method 로 호출)
+                    digest.update(buffer.array(), 0, buffer.limit());
+                    contentLength += buffer.limit();
+                    if (gzip != null) {
+                        gzip.write(buffer.array(), 0, buffer.limit());
+                    } else {
+                        while (buffer.hasRemaining()) file.write(buffer);
+                    }
+                    ((Buffer) buffer).clear();
+                }
+                if (gzip != null) gzip.finish();
+                file.force(true);
+            }
+            String sha256 = hex(digest.digest());
+            String storedSha256 = compress ? hex(storedDigest.digest()) : sha256;
+            writeChecksum(checksum, storedSha256, storedName);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new Archive(target, checksum, sha256, storedSha256, contentLength, Files.size(target));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * sha256sum -c 로 확인할 수 있는 형식 ("{hex}  {file}")
+     */
+    private void writeChecksum(Path checksum, String sha256, String name) throws IOException {
+        Path temp = Files.createTempFile(directory, checksum.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel file = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer line = ByteBuffer.wrap((sha256 + "  " + name + "\n").getBytes(StandardCharsets.US_ASCII));
+                while (line.hasRemaining()) file.write(line);
+                file.force(true);
+            }
+            Files.move(temp, checksum, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 보관된 파일의 SHA-256 을 다시 계산해서 sidecar 와 비교 (sha256sum -c 와 같은 검사)
+     * @param archive {name}.json 또는 {name}.json.gz
+     */
+    public static boolean verify(Path archive) throws IOException {
+        String fileName = archive.getFileName().toString();
+        Path checksum = archive.resolveSibling(fileName + ".sha256");
+        String expected = new String(Files.readAllBytes(checksum), StandardCharsets.US_ASCII).split("\\s+")[0];
+
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(archive)) {
+            for (int n; (n = in.read(buffer)) != -1; ) digest.update(buffer, 0, n);
+        }
+        return hex(digest.digest()).equals(expected);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);        // 모든 JVM 에서 지원
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+}
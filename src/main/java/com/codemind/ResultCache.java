@@ -0,0 +1,409 @@
+package com.codemind;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 분석 결과 cache (project, sequence)
+ *      - 분석이 끝난 sequence 의 결과는 바뀌지 않으므로 한 번 받은 결과를 다시 요청하지 않습니다.
+ *      - memory: 파싱된 요약정보 (AnalysisSummary, 규칙별 통계), 최대 maxEntries 건 LRU
+ *      - disk: gzip 으로 압축한 응답 body, 최대 maxBytes LRU (파일 수정시간을 마지막 사용시간으로 사용)
+ *        서버에서 받는 응답은 기다리지 않고 바로 전달하면서 함께 저장합니다.
+ */
+public class ResultCache {
+
+    public enum Endpoint {
+        ANALYSIS_RESULT("analysis-result"),
+        RULE_STATISTICS("analysis-result-rule-statistics");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    /**
+     * cache 에 없을 때 서버에서 응답 body 를 받습니다. (ex. RestSample::openResult)
+     */
+    public interface Fetcher {
+        InputStream open(String projectName, int sequence, Endpoint endpoint) throws IOException;
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Fetcher fetcher;
+    private final String query;
+    private final Map<String, Object> memory;
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();       // 저장중인 파일 (Caching)
+    private long totalBytes = 0;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param directory disk cache 경로
+     * @param maxBytes disk cache 최대 크기 (압축 후)
+     * @param maxEntries memory cache 최대 건수
+     * @param fetcher 서버 조회
+     */
+    public ResultCache(Path directory, long maxBytes, int maxEntries, Fetcher fetcher) throws IOException {
+        this(directory, maxBytes, maxEntries, fetcher, "");
+    }
+
+    /**
+     * @param query fetcher 가 analysis-result 조회 시 붙이는 query (ex. RestSample.RESULT_QUERY)
+     *              - 응답 내용이 달라지므로 query 별로 따로 저장합니다.
+     */
+    public ResultCache(Path directory, long maxBytes, int maxEntries, Fetcher fetcher, String query) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.fetcher = fetcher;
+        this.query = query == null ? "" : query;
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        load();
+    }
+
+    /**
+     * 이전 실행에서 저장된 파일을 마지막 사용시간 순으로 등록
+     */
+    private void load() throws IOException {
+        List<Path> cached = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.json.gz")) {
+            for (Path path : stream) cached.add(path);
+        }
+        cached.sort(Comparator.comparing(path -> {
+            try {
+                return Files.getLastModifiedTime(path);
+            } catch (IOException e) {
+                return FileTime.fromMillis(0);
+            }
+        }));
+        synchronized (files) {
+            for (Path path : cached) {
+                long size = Files.size(path);
+                files.put(path.getFileName().toString(), size);
+                totalBytes += size;
+            }
+        }
+        evict();
+    }
+
+    /**
+     * 분석 결과 요약정보
+     */
+    public AnalysisSummary getAnalysisSummary(String projectName, int sequence) throws IOException {
+        String key = name(projectName, sequence, Endpoint.ANALYSIS_RESULT);
+        Object cached = memory.get(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return (AnalysisSummary) cached;
+        }
+        AnalysisSummary summary = new AnalysisSummary();
+        try (AnalysisResultParser parser = new AnalysisResultParser(open(projectName, sequence, Endpoint.ANALYSIS_RESULT))) {
+            parser.parse(summary);
+        }
+        memory.put(key, summary);
+        return summary;
+    }
+
+    /**
+     * 규칙별 분석 결과
+     */
+    public JSONObject getRuleStatistics(String projectName, int sequence) throws IOException {
+        String key = name(projectName, sequence, Endpoint.RULE_STATISTICS);
+        Object cached = memory.get(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return (JSONObject) cached;
+        }
+        JSONObject json;
+        try (InputStream in = open(projectName, sequence, Endpoint.RULE_STATISTICS)) {
+            json = new JSONObject(new JSONTokener(in));
+        }
+        memory.put(key, json);
+        return json;
+    }
+
+    /**
+     * 응답 body (압축 해제된 stream)
+     *      - disk cache 에 없으면 서버 응답을 바로 반환하고, 호출한 쪽이 읽는 동안 함께 disk cache 에 씁니다. (Caching)
+     *      - 파일을 연 후에는 다른 thread 의 evict() 가 삭제해도 끝까지 읽을 수 있습니다.
+     */
+    public InputStream open(String projectName, int sequence, Endpoint endpoint) throws IOException {
+        String name = name(projectName, sequence, endpoint) + ".json.gz";
+        Path path = directory.resolve(name);
+        if (isCached(name)) {
+            try {
+                InputStream in = gunzip(path);
+                touch(path);
+                diskHits.incrementAndGet();
+                return in;
+            } catch (NoSuchFileException e) {
+                // 다른 thread 의 evict() 가 먼저 삭제한 경우 - cache miss 로 처리
+                remove(name);
+            }
+        }
+        misses.incrementAndGet();
+        if (!loading.add(name)) {
+            // 다른 stream 이 저장하는 중 - 저장하지 않고 서버 응답만 전달
+            return fetcher.open(projectName, sequence, endpoint);
+        }
+        try {
+            return new Caching(name, path, fetcher.open(projectName, sequence, endpoint));
+        } catch (IOException | RuntimeException e) {
+            loading.remove(name);
+            throw e;
+        }
+    }
+
+    private static InputStream gunzip(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        try {
+            return new GZIPInputStream(in, 65536);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private boolean isCached(String name) {
+        synchronized (files) {
+            return files.get(name) != null;
+        }
+    }
+
+    private static void touch(Path path) throws IOException {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // 연 직후 evict() 로 삭제된 경우 - 이미 연 stream 은 그대로 사용
+        }
+    }
+
+    /**
+     * 서버 응답을 읽는 대로 임시 파일에 gzip 으로 쓰고, 끝까지 읽으면 (EOF) cache 에 등록합니다.
+     *      - 끝까지 읽지 않고 닫으면 나머지를 읽어서 저장합니다. 읽는 중 오류가 나면 임시 파일은 삭제합니다.
+     */
+    private class Caching extends InputStream {
+        private final String name;
+        private final Path path;
+        private final InputStream source;
+        private final Path temp;
+        private final OutputStream out;
+        private boolean done;
+
+        Caching(String name, Path path, InputStream source) throws IOException {
+            this.name = name;
+            this.path = path;
+            this.source = source;
+            Path file = null;
+            try {
+                file = Files.createTempFile(directory, name, ".tmp");
+                this.out = new GZIPOutputStream(Files.newOutputStream(file), 65536);
+            } catch (IOException | RuntimeException e) {
+                source.close();
+                if (file != null) Files.deleteIfExists(file);
+                throw e;
+            }
+            this.temp = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int read = read(one, 0, 1);
+            return read == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) return source.read(b, off, len);
+            try {
+                int read = source.read(b, off, len);
+                if (read == -1) {
+                    commit();
+                } else {
+                    out.write(b, off, read);
+                }
+                return read;
+            } catch (IOException | RuntimeException e) {
+                abort();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (!done) {
+                    byte[] buffer = new byte[65536];
+                    while (read(buffer, 0, buffer.length) != -1) {
+                        // 나머지 저장
+                    }
+                }
+            } finally {
+                source.close();
+            }
+        }
+
+        private void commit() throws IOException {
+            done = true;
+            try {
+                out.close();
+                long size = Files.size(temp);
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                synchronized (files) {
+                    Long previous = files.put(name, size);
+                    totalBytes += size - (previous != null ? previous : 0);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+                loading.remove(name);
+            }
+            evict();
+        }
+
+        private void abort() {
+            if (!done) {
+                done = true;
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // 삭제할 파일
+                }
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    System.out.println("cache: " + e.getMessage());
+                }
+                loading.remove(name);
+            }
+        }
+    }
+
+    /**
+     * 오래 사용되지 않은 파일부터 maxBytes 이하가 될 때까지 삭제 (방금 저장한 파일은 남겨둡니다.)
+     */
+    private void evict() throws IOException {
+        List<String> evicted = new ArrayList<>();
+        synchronized (files) {
+            Iterator<Map.Entry<String, Long>> it = files.entrySet().iterator();
+            while (totalBytes > maxBytes && files.size() > 1 && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                totalBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (String name : evicted) {
+            Files.deleteIfExists(directory.resolve(name));
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String name) {
+        synchronized (files) {
+            Long size = files.remove(name);
+            if (size != null) totalBytes -= size;
+        }
+    }
+
+    /**
+     * cache 이름 - key 에 analysis-result 의 query 가 있으면 query 의 SHA-256 앞 16자리를 붙입니다. ({key}-q{hash})
+     */
+    private String name(String projectName, int sequence, Endpoint endpoint) {
+        String key = key(projectName, sequence, endpoint);
+        return endpoint == Endpoint.ANALYSIS_RESULT && !query.isEmpty() ? key + "-q" + hash(query) : key;
+    }
+
+    /**
+     * 파일 이름 - {project}-{hash}-{sequence}-{endpoint}
+     *      - 파일 이름에 쓸 수 없는 문자는 _ 로 바꾸고, 바꾼 이름이 같은 프로젝트 (ex. proj 1, proj/1, proj_1) 나
+     *        대소문자만 다른 프로젝트를 구분하도록 원래 이름의 SHA-256 앞 16자리를 붙입니다.
+     */
+    static String key(String projectName, int sequence, Endpoint endpoint) {
+        return projectName.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + hash(projectName) + "-" + sequence + "-" + endpoint.getPath();
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                builder.append(Character.forDigit((digest[i] >> 4) & 0xf, 16)).append(Character.forDigit(digest[i] & 0xf, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);        // 모든 JVM 에서 지원
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getDiskBytes() {
+        synchronized (files) {
+            return totalBytes;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "memoryHits: " + getMemoryHits() +
+                ", diskHits: " + getDiskHits() +
+                ", misses: " + getMisses() +
+                ", evictions: " + getEvictions() +
+                ", diskBytes: " + getDiskBytes();
+    }
+}
@@ -0,0 +1,336 @@
+package com.codemind;
+
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 여러 thread 가 함께 사용하는 로그인 session
+ *      - cookie (JSESSIONID) 와 _csrf 를 한 곳에서 관리합니다.
+ *      - 요청 중 session 이 만료되면 (401 / 로그인 페이지로 redirect) 다시 로그인한 후 요청을 한 번 더 보냅니다.
+ *        403 은 권한 없음 / _csrf 오류일 수 있으므로 /user/login/check 로 session 을 확인한 후 만료된 경우만 다시 로그인합니다.
+ *      - 동시에 여러 thread 가 만료를 감지해도 로그인 (/user/login/process + /user/login/check) 은 한 번만 실행됩니다.
+ *        로그인이 실패하면 기다리던 thread 들은 다시 로그인하지 않고 같은 예외를 받습니다.
+ *      - limiter 를 설정하면 endpoint 별 동시 요청 수를 제한합니다. (로그인 요청은 제외)
+ *
+ *  ex) SessionManager session = new SessionManager(httpclient, CODEMIND_URL, USERNAME, PASSWORD);
+ *      session.login();
+ *      try (CloseableHttpResponse response = session.execute(csrf -> new HttpGet(url))) { ... }
+ */
+public class SessionManager {
+    static final String LOGIN_PATH = "/user/login";
+
+    /**
+     * 요청 생성 (재로그인 후 다시 보낼 때 새 _csrf 로 다시 만듭니다.)
+     */
+    public interface RequestFactory {
+        HttpUriRequest create(String csrf) throws IOException;
+    }
+
+    private final CloseableHttpClient client;
+    private final String baseUrl;
+    private final String username;
+    private final String password;
+    private final ClientMetrics metrics;
+    private final AdaptiveLimiter limiter;
+    private final CookieStore cookieStore = new BasicCookieStore();
+    private final ReentrantLock loginLock = new ReentrantLock();
+
+    private volatile String csrf = "";
+    private volatile long generation;           // 로그인 성공 횟수
+    private IOException failure;                // 마지막 로그인 실패 (loginLock)
+    private long failedGeneration = -1;
+    private long failureTime;                   // System.nanoTime()
+
+    public SessionManager(CloseableHttpClient client, String baseUrl, String username, String password) {
+        this(client, baseUrl, username, password, null);
+    }
+
+    /**
+     * @param metrics 재로그인 후 다시 요청한 횟수 기록 (null 가능)
+     */
+    public SessionManager(CloseableHttpClient client, String baseUrl, String username, String password, ClientMetrics metrics) {
+        this(client, baseUrl, username, password, metrics, null);
+    }
+
+    /**
+     * @param limiter endpoint 별 동시 요청 수 제한 / circuit breaker (null 가능)
+     */
+    public SessionManager(CloseableHttpClient client, String baseUrl, String username, String password,
+                          ClientMetrics metrics, AdaptiveLimiter limiter) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.password = password;
+        this.metrics = metrics;
+        this.limiter = limiter;
+    }
+
+    /**
+     * 로그인 후 _csrf 조회
+     * @return _csrf
+     */
+    public String login() throws IOException {
+        return reauthenticate(generation);
+    }
+
+    /**
+     * 요청 실행
+     *      - session 이 만료된 경우 다시 로그인 후 한 번 더 요청합니다.
+     *      - 반환된 response 는 호출한 쪽에서 닫아야 합니다.
+     * @throws CircuitOpenException limiter 의 circuit 이 열려 있는 경우
+     */
+    public CloseableHttpResponse execute(RequestFactory factory) throws IOException {
+        long observed = generation;
+        HttpClientContext context = context();
+        String used = csrf;
+        HttpUriRequest request = factory.create(used);
+        CloseableHttpResponse response = send(request, context);
+        String refreshed = null;            // session 은 유효하고 _csrf 만 바뀐 경우 새 _csrf
+        if (!isExpired(response, context)) {
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_FORBIDDEN) {
+                return response;
+            }
+            String current;
+            try {
+                current = checkSession();
+            } catch (IOException | RuntimeException e) {
+                response.close();
+                throw e;
+            }
+            if (used.equals(current)) {
+                return response;            // 로그인 상태 - 권한 없음 등
+            }
+            refreshed = current;            // null 이면 만료
+        }
+        try {
+            EntityUtils.consume(response.getEntity());
+        } finally {
+            response.close();
+        }
+        if (refreshed != null) {
+            csrf = refreshed;
+        } else {
+            reauthenticate(observed);
+        }
+        if (metrics != null) metrics.retry(request.getURI().toString());
+        return send(factory.create(csrf), context());
+    }
+
+    public <T> T execute(RequestFactory factory, ResponseHandler<? extends T> handler) throws IOException {
+        try (CloseableHttpResponse response = execute(factory)) {
+            return handler.handleResponse(response);
+        }
+    }
+
+    /**
+     * session 유지 (/user/login/check) - 오래 실행되는 경우 주기적으로 호출합니다.
+     *      - 이미 만료된 경우 다시 로그인합니다.
+     */
+    public void keepAlive() throws IOException {
+        execute(csrf -> {
+            HttpGet get = new HttpGet(baseUrl + LOGIN_PATH + "/check");
+            get.setHeader("Referer", baseUrl + LOGIN_PATH + "/process");
+            return get;
+        }, response -> {
+            EntityUtils.consume(response.getEntity());
+            return null;
+        });
+    }
+
+    /**
+     * limiter 가 있으면 응답 header 를 받을 때까지 endpoint 의 동시 요청 수에 포함합니다.
+     */
+    private CloseableHttpResponse send(HttpUriRequest request, HttpClientContext context) throws IOException {
+        if (limiter == null) {
+            return client.execute(request, context);
+        }
+        AdaptiveLimiter.Permit permit = limiter.acquire(ClientMetrics.endpointOf(request.getURI().toString()));
+        CloseableHttpResponse response;
+        try {
+            response = client.execute(request, context);
+        } catch (IOException e) {
+            permit.release(AdaptiveLimiter.Outcome.DROPPED);
+            throw e;
+        } catch (RuntimeException e) {
+            permit.release(AdaptiveLimiter.Outcome.IGNORED);
+            throw e;
+        }
+        try {
+            permit.release(isExpired(response, context) ? AdaptiveLimiter.Outcome.IGNORED : AdaptiveLimiter.classify(response));
+        } catch (IOException e) {
+            permit.release(AdaptiveLimiter.Outcome.DROPPED);
+            response.close();
+            throw e;
+        }
+        return response;
+    }
+
+    private HttpClientContext context() {
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(cookieStore);
+        return context;
+    }
+
+    static boolean isExpired(CloseableHttpResponse response, HttpClientContext context) {
+        int status = response.getStatusLine().getStatusCode();
+        if (status == HttpStatus.SC_UNAUTHORIZED) {
+            return true;
+        }
+        if (status == HttpStatus.SC_MOVED_TEMPORARILY || status == HttpStatus.SC_SEE_OTHER) {
+            // redirect 하지 않는 요청 (POST, PUT)
+            Header location = response.getFirstHeader("Location");
+            return location != null && location.getValue().contains(LOGIN_PATH);
+        }
+        List<URI> redirects = context.getRedirectLocations();
+        if (redirects != null) {
+            // 로그인 페이지로 redirect 된 경우 (GET)
+            for (URI uri : redirects) {
+                if (uri.getPath() != null && uri.getPath().startsWith(LOGIN_PATH)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * observed 이후에 다른 thread 가 이미 로그인했다면 다시 로그인하지 않고 그 결과를 사용합니다.
+     *      - lock 을 기다리는 동안 다른 thread 의 로그인이 실패했다면 (같은 generation) 다시 시도하지 않고 그 예외를 던집니다.
+     *        이후에 만료를 감지한 요청은 다시 로그인합니다.
+     */
+    private String reauthenticate(long observed) throws IOException {
+        long requested = System.nanoTime();
+        loginLock.lock();
+        try {
+            if (generation != observed) {
+                return csrf;
+            }
+            if (failure != null && failedGeneration == observed && failureTime - requested >= 0) {
+                throw failure;
+            }
+            cookieStore.clear();
+            try {
+                processLogin();
+                csrf = checkLogin();
+            } catch (IOException e) {
+                failure = e;
+                failedGeneration = observed;
+                failureTime = System.nanoTime();
+                throw e;
+            }
+            failure = null;
+            generation = observed + 1;
+            return csrf;
+        } finally {
+            loginLock.unlock();
+        }
+    }
+
+    /**
+     * 로그인 상태 확인 (/user/login/check)
+     * @return 로그인되어 있으면 현재 _csrf, 만료됐으면 null
+     */
+    private String checkSession() throws IOException {
+        HttpClientContext context = context();
+        HttpGet get = new HttpGet(baseUrl + LOGIN_PATH + "/check");
+        get.setHeader("Referer", baseUrl + LOGIN_PATH + "/process");
+        try (CloseableHttpResponse response = client.execute(get, context)) {
+            String content = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK || isExpired(response, context)) {
+                return null;
+            }
+            try {
+                return new JSONObject(content).optString("_csrf", null);
+            } catch (JSONException e) {
+                return null;                // 로그인 페이지 등
+            }
+        }
+    }
+
+    private void processLogin() throws IOException {
+        HttpPost post = new HttpPost(baseUrl + LOGIN_PATH + "/process");
+        List<NameValuePair> entity = new ArrayList<>();
+        entity.add(new BasicNameValuePair("REQUEST_KIND", "API"));
+        entity.add(new BasicNameValuePair("username", username));
+        entity.add(new BasicNameValuePair("password", password));
+        post.setEntity(new UrlEncodedFormEntity(entity, StandardCharsets.UTF_8));
+
+        try (CloseableHttpResponse response = client.execute(post, context())) {
+            String content = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new HttpResponseException(response.getStatusLine().getStatusCode(), content);
+            }
+            if (content.startsWith("CM-")) {
+                // application fail
+                throw new IOException("login failed: " + content);
+            }
+            System.out.println("login successfully");
+        }
+    }
+
+    /**
+     * /user/login/check
+     * @return _csrf
+     */
+    private String checkLogin() throws IOException {
+        HttpGet get = new HttpGet(baseUrl + LOGIN_PATH + "/check");
+        get.setHeader("Referer", baseUrl + LOGIN_PATH + "/process");       // value 값에 아무 URL을 전달하면 됩니다.
+        try (CloseableHttpResponse response = client.execute(get, context())) {
+            String content = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new HttpResponseException(response.getStatusLine().getStatusCode(), content);
+            }
+            return new JSONObject(content).getString("_csrf");
+        }
+    }
+
+    public String getCsrf() {
+        return csrf;
+    }
+
+    /**
+     * 로그인 횟수 (재로그인 포함)
+     */
+    public long getLogins() {
+        return generation;
+    }
+
+    /**
+     * @return 설정하지 않았으면 null
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return 설정하지 않았으면 null
+     */
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+
+    public CookieStore getCookieStore() {
+        return cookieStore;
+    }
+}
@@ -0,0 +1,231 @@
+package com.codemind;
+
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 프로젝트 분석 진행상태 체크
+ *      - 하나의 scheduler thread 에서 분석중인 모든 프로젝트의 상태 조회 시점을 관리합니다.
+ *        응답을 기다리는 (blocking) 조회는 scheduler thread 가 아니라 별도의 조회 thread 에서 동시에 요청합니다.
+ *      - 조회 간격은 initialDelay 부터 시작해서 maxDelay 까지 늘어나고 (jitter 포함),
+ *        상태 문자열이 바뀌면 다시 initialDelay 로 돌아갑니다.
+ *      - 분석이 끝나면 watch() 가 반환한 CompletableFuture 로 sequence 가 전달됩니다.
+ */
+public class StatusScheduler implements Closeable {
+
+    /**
+     * /api/{project}/status 조회
+     */
+    public interface StatusSource {
+        CompletableFuture<JSONObject> getStatus(String projectName);
+    }
+
+    /**
+     * /api/{project}/status 조회 - 응답을 받을 때까지 기다리는 경우 (ex. RestSample::getStatus)
+     */
+    public interface BlockingStatusSource {
+        JSONObject getStatus(String projectName) throws Exception;
+    }
+
+
+    static final long INITIAL_DELAY = 1000;         // ms
+    static final long MAX_DELAY = 30000;            // ms
+    static final double BACKOFF = 1.5;
+    static final double JITTER = 0.2;
+
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(AnalysisOrchestrator.daemonThreads("codemind-status"));
+    private final long initialDelay;
+    private final long maxDelay;
+    private final long timeout;
+    private final StatusSource source;
+    private final ExecutorService pollers;          // BlockingStatusSource 조회 thread (없으면 null)
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+
+    /**
+     * RestSample.getStatus 로 조회 (동시 분석 수 만큼의 조회 thread 에서 요청)
+     */
+    public StatusScheduler() {
+        this(RestSample::getStatus, RestSample.MAX_IN_FLIGHT,
+                INITIAL_DELAY, MAX_DELAY, TimeUnit.SECONDS.toMillis(RestSample.REQUEST_TIMEOUT), TimeUnit.MILLISECONDS);
+    }
+
+    public StatusScheduler(StatusSource source) {
+        this(source, INITIAL_DELAY, MAX_DELAY, TimeUnit.SECONDS.toMillis(RestSample.REQUEST_TIMEOUT), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param source 상태 조회
+     * @param initialDelay 최초 / 상태 변경 후 조회 간격
+     * @param maxDelay 최대 조회 간격
+     * @param timeout 분석 대기 시간
+     */
+    public StatusScheduler(StatusSource source, long initialDelay, long maxDelay, long timeout, TimeUnit unit) {
+        this(source, null, initialDelay, maxDelay, timeout, unit);
+    }
+
+    /**
+     * @param source blocking 상태 조회
+     * @param pollThreads 동시에 조회할 thread 수
+     */
+    public StatusScheduler(BlockingStatusSource source, int pollThreads, long initialDelay, long maxDelay, long timeout, TimeUnit unit) {
+        this(Executors.newFixedThreadPool(pollThreads, AnalysisOrchestrator.daemonThreads("codemind-status-poll")), source,
+                initialDelay, maxDelay, timeout, unit);
+    }
+
+    private StatusScheduler(ExecutorService pollers, BlockingStatusSource source, long initialDelay, long maxDelay, long timeout, TimeUnit unit) {
+        this(projectName -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return source.getStatus(projectName);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, pollers), pollers, initialDelay, maxDelay, timeout, unit);
+    }
+
+    private StatusScheduler(StatusSource source, ExecutorService pollers, long initialDelay, long maxDelay, long timeout, TimeUnit unit) {
+        this.source = source;
+        this.pollers = pollers;
+        this.initialDelay = unit.toMillis(initialDelay);
+        this.maxDelay = Math.max(unit.toMillis(maxDelay), this.initialDelay);
+        this.timeout = unit.toMillis(timeout);
+    }
+
+    /**
+     * 분석 완료 대기
+     * @param projectName
+     * @return 분석 성공 시 sequence, 실패 / timeout 시 예외로 완료
+     */
+    public CompletableFuture<Integer> watch(String projectName) {
+        return watch(projectName, -1);
+    }
+
+    /**
+     * 분석 완료 대기 - 분석 요청 직후에는 서버가 이전 분석의 상태 (success 등) 를 응답할 수 있으므로
+     * sequence 가 after 보다 큰 경우만 이번 분석의 결과로 봅니다.
+     * @param after 분석 요청 전 sequence (StatusScheduler.sequenceOf)
+     */
+    public CompletableFuture<Integer> watch(String projectName, int after) {
+        Watch watch = new Watch(projectName, after);
+        watches.add(watch);
+        watch.result.whenComplete((sequence, ex) -> watches.remove(watch));
+        scheduler.execute(watch);
+        return watch.result;
+    }
+
+    /**
+     * 상태 한 번 조회 (watch 와 같은 source 사용)
+     */
+    public CompletableFuture<JSONObject> status(String projectName) {
+        try {
+            return source.getStatus(projectName);
+        } catch (RuntimeException e) {
+            CompletableFuture<JSONObject> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * @return 상태 응답의 sequence (분석한 적이 없으면 0)
+     */
+    static int sequenceOf(JSONObject json) {
+        String sequence = json.optString("sequence", "");
+        return sequence.isEmpty() ? 0 : Integer.parseInt(sequence);
+    }
+
+    private class Watch implements Runnable {
+        final String projectName;
+        final int after;
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+        final long startTime = System.currentTimeMillis();
+        String lastStatus;
+        long delay = initialDelay;
+
+        Watch(String projectName, int after) {
+            this.projectName = projectName;
+            this.after = after;
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) return;     // cancelled
+            long elapsed = System.currentTimeMillis() - startTime;
+            if (elapsed >= timeout) {
+                result.completeExceptionally(new TimeoutException(
+                        String.format("[%s] analysis failed: request timeout %s sec.", projectName, elapsed / 1000)));
+                return;
+            }
+            CompletableFuture<JSONObject> status;
+            try {
+                status = source.getStatus(projectName);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            status.whenComplete((json, ex) -> {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                if (cause instanceof CircuitOpenException) {
+                    // 서버 보호를 위해 요청하지 않은 경우 - 분석 실패가 아니므로 circuit 이 닫힐 때까지 기다렸다가 다시 조회
+                    scheduler.schedule(this, Math.max(((CircuitOpenException) cause).getRetryAfter(), delay), TimeUnit.MILLISECONDS);
+                } else if (cause != null) {
+                    result.completeExceptionally(cause);
+                } else {
+                    update(json, elapsed);
+                }
+            });
+        }
+
+        private void update(JSONObject json, long elapsed) {
+            try {
+                String status = json.getString("status");
+                boolean finished = !RestSample.isRunning(status);
+                if (finished && sequenceOf(json) <= after) {
+                    // 이전 분석의 상태 - 요청한 분석이 아직 시작되지 않음
+                    status = "pending";
+                } else if (status.equals("success")) {
+                    result.complete(Integer.parseInt(Optional.ofNullable(json.getString("sequence")).orElse("0")));
+                    return;
+                } else if (finished) {
+                    result.completeExceptionally(new IllegalStateException(
+                            String.format("[%s] analysis failed: %s", projectName, status)));
+                    return;
+                }
+                if (!status.equals(lastStatus)) {
+                    System.out.println(String.format("[%s] %s...%s", projectName, status, elapsed / 1000));
+                    lastStatus = status;
+                    delay = initialDelay;
+                } else {
+                    delay = Math.min((long) (delay * BACKOFF), maxDelay);
+                }
+                long jitter = (long) (delay * JITTER * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+                scheduler.schedule(this, delay + jitter, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if (pollers != null) pollers.shutdownNow();
+        for (Watch watch : watches) {
+            watch.result.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.codemind;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 문자열 -> int id (0 부터 순서대로)
+ *      - 파일 경로, canon id 처럼 반복되는 문자열을 한 번만 저장합니다.
+ */
+public class StringTable {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * @return 등록되지 않은 경우 -1
+     */
+    public int find(String value) {
+        Integer id = ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    public String get(int id) {
+        return values.get(id);
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,60 @@
+package com.codemind;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 초당 요청 수 제한 (token bucket)
+ *      - permitsPerSecond 속도로 token 이 채워지고 최대 burst 개까지 쌓입니다.
+ *      - acquire() 는 token 이 생길 때까지 대기합니다.
+ */
+public class TokenBucket {
+    private final double permitsPerNano;
+    private final double burst;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long wait;
+        while ((wait = reserve()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 0 이면 token 획득, 아니면 다음 token 까지 남은 시간 (ns)
+     */
+    private synchronized long reserve() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / permitsPerNano));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+}
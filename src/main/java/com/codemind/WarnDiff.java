@@ -0,0 +1,179 @@
+package com.codemind;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 두 분석 결과(sequence)의 취약점 비교
+ *      - 두 결과를 AnalysisResultParser 로 순서대로 읽으면서 warns 의 fingerprint (canon + file + sink sLine/sColumn) 만 저장합니다.
+ *      - 메모리 사용량은 결과 크기가 아닌 취약점 건수에 비례합니다.
+ *      - added: 새로 발견된 취약점 (current 의 id), removed: 조치된 취약점 (previous 의 id), unchanged: 유지된 취약점 (current 의 id)
+ */
+public class WarnDiff {
+    private final int[] added;
+    private final int[] removed;
+    private final int[] unchanged;
+
+    private WarnDiff(int[] added, int[] removed, int[] unchanged) {
+        this.added = added;
+        this.removed = removed;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * ResultCache 를 통해 두 sequence 의 결과를 비교
+     */
+    public static WarnDiff compare(ResultCache cache, String projectName, int previousSequence, int currentSequence) throws IOException {
+        try (InputStream previous = cache.open(projectName, previousSequence, ResultCache.Endpoint.ANALYSIS_RESULT);
+             InputStream current = cache.open(projectName, currentSequence, ResultCache.Endpoint.ANALYSIS_RESULT)) {
+            return compare(previous, current);
+        }
+    }
+
+    /**
+     * @param previous 이전 analysis-result 응답 body
+     * @param current 현재 analysis-result 응답 body
+     */
+    public static WarnDiff compare(InputStream previous, InputStream current) {
+        FingerprintIndex index = new FingerprintIndex();
+        new AnalysisResultParser(previous).parse(new AnalysisResultParser.Handler() {
+            @Override
+            public void warn(JSONObject warn) {
+                index.add(fingerprint(warn), warn.optInt("id"));
+            }
+        });
+
+        IntArrayList added = new IntArrayList();
+        IntArrayList unchanged = new IntArrayList();
+        new AnalysisResultParser(current).parse(new AnalysisResultParser.Handler() {
+            @Override
+            public void warn(JSONObject warn) {
+                if (index.match(fingerprint(warn))) {
+                    unchanged.add(warn.optInt("id"));
+                } else {
+                    added.add(warn.optInt("id"));
+                }
+            }
+        });
+        return new WarnDiff(added.toArray(), index.unmatched(), unchanged.toArray());
+    }
+
+    /**
+     * canon + file + sink(sLine, sColumn) 64bit FNV-1a hash
+     *      - 같은 취약점이라도 sequence 마다 id 가 다르므로 위치로 비교합니다.
+     */
+    static long fingerprint(JSONObject warn) {
+        JSONObject sink = warn.optJSONObject("sink");
+        long hash = 0xcbf29ce484222325L;
+        hash = hash(hash, warn.optString("canon"));
+        hash = hash(hash, warn.optString("file"));
+        hash = hash(hash, sink != null ? sink.optInt("sLine") : 0);
+        hash = hash(hash, sink != null ? sink.optInt("sColumn") : 0);
+        return hash;
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return (hash ^ 0xff) * 0x100000001b3L;        // 구분자
+    }
+
+    private static long hash(long hash, int value) {
+        for (int i = 0; i < 4; i++) {
+            hash = (hash ^ ((value >>> (i * 8)) & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public int[] getAdded() {
+        return added;
+    }
+
+    public int[] getRemoved() {
+        return removed;
+    }
+
+    public int[] getUnchanged() {
+        return unchanged;
+    }
+
+    @Override
+    public String toString() {
+        return "added: " + added.length + ", removed: " + removed.length + ", unchanged: " + unchanged.length;
+    }
+
+    /**
+     * fingerprint -> 이전 취약점 id (open hashing, 같은 fingerprint 가 여러 건이면 한 건씩 매칭)
+     */
+    private static class FingerprintIndex {
+        private long[] fingerprints = new long[1024];
+        private int[] ids = new int[1024];
+        private int[] next = new int[1024];
+        private int[] buckets = newBuckets(2048);
+        private final BitSet matched = new BitSet();
+        private int size;
+
+        void add(long fingerprint, int id) {
+            if (size == fingerprints.length) {
+                int capacity = size * 2;
+                fingerprints = Arrays.copyOf(fingerprints, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            if (size * 4 >= buckets.length * 3) {
+                rehash(buckets.length * 2);
+            }
+            fingerprints[size] = fingerprint;
+            ids[size] = id;
+            int bucket = bucket(fingerprint);
+            next[size] = buckets[bucket];
+            buckets[bucket] = size;
+            size++;
+        }
+
+        /**
+         * 아직 매칭되지 않은 같은 fingerprint 가 있으면 매칭 처리
+         */
+        boolean match(long fingerprint) {
+            for (int i = buckets[bucket(fingerprint)]; i != -1; i = next[i]) {
+                if (fingerprints[i] == fingerprint && !matched.get(i)) {
+                    matched.set(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int[] unmatched() {
+            IntArrayList result = new IntArrayList(size - matched.cardinality());
+            for (int i = matched.nextClearBit(0); i < size; i = matched.nextClearBit(i + 1)) {
+                result.add(ids[i]);
+            }
+            return result.toArray();
+        }
+
+        private void rehash(int capacity) {
+            buckets = newBuckets(capacity);
+            for (int i = 0; i < size; i++) {
+                int bucket = bucket(fingerprints[i]);
+                next[i] = buckets[bucket];
+                buckets[bucket] = i;
+            }
+        }
+
+        private int bucket(long fingerprint) {
+            return (int) (fingerprint ^ (fingerprint >>> 32)) & (buckets.length - 1);
+        }
+
+        private static int[] newBuckets(int capacity) {
+            int[] buckets = new int[capacity];
+            Arrays.fill(buckets, -1);
+            return buckets;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.codemind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ParallelAggregator 집계 결과
+ *      - canon / 파일 / (파일, canon) 별 취약점 수를 int id 기준으로 보관하고, 조회 시 이름으로 변환합니다.
+ *      - CWE, risky, 디렉토리 별 집계는 위 값으로 계산합니다.
+ */
+public class WarnStatistics {
+    private final String[] files;
+    private final String[] canonIds;
+    private final String[] canonCwe;
+    private final int[] canonRisky;
+    private final int[] byCanon;
+    private final int[] byFile;
+    private final LongIntHashMap byFileAndCanon;
+    private final long total;
+
+    WarnStatistics(String[] files, String[] canonIds, String[] canonCwe, int[] canonRisky,
+                   int[] byCanon, int[] byFile, LongIntHashMap byFileAndCanon) {
+        this.files = files;
+        this.canonIds = canonIds;
+        this.canonCwe = canonCwe;
+        this.canonRisky = canonRisky;
+        this.byCanon = byCanon;
+        this.byFile = byFile;
+        this.byFileAndCanon = byFileAndCanon;
+        long sum = 0;
+        for (int count : byCanon) sum += count;
+        this.total = sum;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return 없으면 0
+     */
+    public int getCount(String canonId) {
+        for (int i = 0; i < canonIds.length; i++) {
+            if (canonIds[i].equals(canonId)) return byCanon[i];
+        }
+        return 0;
+    }
+
+    public Map<String, Integer> countByCanon() {
+        Map<String, Integer> result = new TreeMap<>();
+        for (int i = 0; i < byCanon.length; i++) {
+            if (byCanon[i] > 0) result.put(canonIds[i], byCanon[i]);
+        }
+        return result;
+    }
+
+    /**
+     * canons[*].cwe 별 (cwe 가 없는 규칙은 "")
+     *      - 여러 cwe 에 해당하는 규칙 (ex. "CWE-209,CWE-497") 은 각 cwe 에 더하므로 합계가 전체 취약점 수보다 클 수 있습니다.
+     */
+    public Map<String, Integer> countByCwe() {
+        Map<String, Integer> result = new TreeMap<>();
+        for (int i = 0; i < byCanon.length; i++) {
+            if (byCanon[i] > 0) {
+                for (String cwe : split(canonCwe[i])) result.merge(cwe, byCanon[i], Integer::sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * canons[*].risky 별
+     */
+    public Map<Integer, Integer> countByRisky() {
+        Map<Integer, Integer> result = new TreeMap<>();
+        for (int i = 0; i < byCanon.length; i++) {
+            if (byCanon[i] > 0) result.merge(canonRisky[i], byCanon[i], Integer::sum);
+        }
+        return result;
+    }
+
+    public Map<String, Integer> countByFile() {
+        Map<String, Integer> result = new TreeMap<>();
+        for (int i = 0; i < byFile.length; i++) {
+            if (byFile[i] > 0) result.put(files[i], byFile[i]);
+        }
+        return result;
+    }
+
+    public Map<String, Integer> countByDirectory() {
+        Map<String, Integer> result = new TreeMap<>();
+        for (int i = 0; i < byFile.length; i++) {
+            if (byFile[i] > 0) result.merge(ColumnarResultReader.directoryOf(files[i]), byFile[i], Integer::sum);
+        }
+        return result;
+    }
+
+    /**
+     * 디렉토리 -> canon -> 취약점 수
+     */
+    public Map<String, Map<String, Integer>> countByDirectoryAndCanon() {
+        String[] directories = new String[files.length];
+        for (int i = 0; i < files.length; i++) {
+            directories[i] = ColumnarResultReader.directoryOf(files[i]);
+        }
+        Map<String, Map<String, Integer>> result = new TreeMap<>();
+        byFileAndCanon.forEach((key, count) -> result
+                .computeIfAbsent(directories[(int) (key >>> 32)], k -> new TreeMap<>())
+                .merge(canonIds[(int) key], count, Integer::sum));
+        return result;
+    }
+
+    /**
+     * CWE -> risky -> 취약점 수 (countByCwe 와 같이 여러 cwe 에 해당하는 규칙은 각 cwe 에 더합니다.)
+     */
+    public Map<String, Map<Integer, Integer>> countByCweAndRisky() {
+        Map<String, Map<Integer, Integer>> result = new TreeMap<>();
+        for (int i = 0; i < byCanon.length; i++) {
+            if (byCanon[i] > 0) {
+                for (String cwe : split(canonCwe[i])) {
+                    result.computeIfAbsent(cwe, k -> new TreeMap<>()).merge(canonRisky[i], byCanon[i], Integer::sum);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * "CWE-209, CWE-497" -> [CWE-209, CWE-497] (없으면 [""])
+     */
+    static List<String> split(String cwe) {
+        List<String> result = new ArrayList<>(1);
+        for (String value : cwe.split(",")) {
+            value = value.trim();
+            if (!value.isEmpty()) result.add(value);
+        }
+        if (result.isEmpty()) result.add("");
+        return result;
+    }
+}